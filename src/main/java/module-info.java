@@ -22,4 +22,5 @@ module spl {
     exports spl.tools.codeArea;
     exports spl.ast;
     exports spl.util;
+    exports spl.vm;
 }
\ No newline at end of file
@@ -6,21 +6,30 @@ import spl.util.BytesIn;
 import spl.util.Reconstructor;
 
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedHashMap;
 
 public class CacheReconstructor {
 
-    private final String cacheFileName;
+    private final InputStream input;
     private String srcAbsPath;
     private LinkedHashMap<String, ParseResult> parsedModules;
 
-    public CacheReconstructor(String cacheFileName) {
-        this.cacheFileName = cacheFileName;
+    public CacheReconstructor(String cacheFileName) throws FileNotFoundException {
+        this(new FileInputStream(cacheFileName));
+    }
+
+    /**
+     * @param input the stream of a compiled program, which is closed after reconstruction
+     */
+    public CacheReconstructor(InputStream input) {
+        this.input = input;
     }
 
     public ParseResult reconstruct() throws Exception {
-        BytesIn bis = new BytesIn(new FileInputStream(cacheFileName));
+        BytesIn bis = new BytesIn(input);
         byte[] head = new byte[8];
         if (bis.read(head) != 8) {
             bis.close();
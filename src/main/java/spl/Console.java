@@ -62,7 +62,14 @@ public class Console {
 
         Memory memory = new Memory(new Memory.Options(
                 Configs.getInt("stackLimit", 512),
-                Configs.getInt("heapSize", 8192),
+                Configs.getInt("heapInitial", 8192),
+                Configs.getInt("heapMax", 1048576),
+                Configs.getInt("nurserySize", 2048),
+                Configs.getInt("gcThreads", 0),
+                Configs.getBoolean("incrementalGc", false),
+                Configs.getInt("gcPauseTarget", 5),
+                Configs.getBoolean("bytecode", false),
+                Configs.getBoolean("jit", false),
                 Configs.getBoolean("contract", true),
                 Configs.getBoolean("assert", true)));
         globalEnvironment = new GlobalEnvironment(memory);
@@ -131,8 +138,7 @@ public class Console {
     }
 
     public void interrupt() {
-        globalEnvironment.throwException(
-                (Reference) globalEnvironment.get(Constants.INTERRUPTION_INS, LineFilePos.LFP_CONSOLE));
+        globalEnvironment.requestInterrupt();
     }
 
     public GlobalEnvironment getGlobalEnvironment() {
@@ -7,11 +7,12 @@ import spl.util.BytesOut;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class SplCacheSaver {
-    public static final int VERSION = 4;
+    public static final int VERSION = 5;
     private final String srcAbsPath;
     private final String cacheFileName;
     private final ParseResult parseResult;
@@ -27,26 +28,35 @@ public class SplCacheSaver {
     }
 
     public void save() {
-        try {
-            BytesOut bos = new BytesOut(new FileOutputStream(cacheFileName));
-
-            byte[] head = new byte[8];
-            head[0] = (byte) VERSION;
-            bos.write(head);
-            bos.writeString(srcAbsPath);
-
-            bos.writeInt(parsedModules.size());
-            for (Map.Entry<String, ParseResult> entry : parsedModules.entrySet()) {
-                bos.writeString(entry.getKey());
-                entry.getValue().getRoot().save(bos);
-            }
-
-            BlockStmt root = parseResult.getRoot();
-            root.save(bos);
-            bos.flush();
-            bos.close();
+        try (OutputStream out = new FileOutputStream(cacheFileName)) {
+            write(out);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Writes the compiled program to {@code out}, which is flushed but not closed.
+     *
+     * @param out the output stream
+     * @throws IOException if the program cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        BytesOut bos = new BytesOut(out);
+
+        byte[] head = new byte[8];
+        head[0] = (byte) VERSION;
+        bos.write(head);
+        bos.writeString(srcAbsPath);
+
+        bos.writeInt(parsedModules.size());
+        for (Map.Entry<String, ParseResult> entry : parsedModules.entrySet()) {
+            bos.writeString(entry.getKey());
+            entry.getValue().getRoot().save(bos);
+        }
+
+        BlockStmt root = parseResult.getRoot();
+        root.save(bos);
+        bos.flush();
+    }
 }
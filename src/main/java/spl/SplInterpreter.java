@@ -23,6 +23,7 @@ import spl.parser.ParseResult;
 import spl.parser.Parser;
 import spl.util.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
@@ -51,6 +52,10 @@ public class SplInterpreter {
                             NativeOutFile.class, "NativeOutFile"
                     )
             );
+    /**
+     * Module path of lang, as made by the text processor.
+     */
+    private static final String LANG_PATH = "lib" + File.separator + "lang.sp";
     private static InputStream in = System.in;
     private static PrintStream out = System.out;
     private static PrintStream err = System.err;
@@ -89,10 +94,16 @@ public class SplInterpreter {
     static void importModules(GlobalEnvironment ge, LinkedHashMap<String, ParseResult> parsedModules) {
         for (Map.Entry<String, ParseResult> entry : parsedModules.entrySet()) {
             ModuleEnvironment moduleScope = new ModuleEnvironment(entry.getKey(), ge);
+            int rootsMark = ge.getMemory().addTempEnv(moduleScope);
             entry.getValue().getRoot().evaluate(moduleScope);
+            if (entry.getKey().equals(LANG_PATH) && !ge.hasException()) ge.setLangClasses(moduleScope);
             SplModule module = new SplModule(entry.getKey(), moduleScope);
 
             Reference ptr = ge.getMemory().allocateObject(module, moduleScope);
+            moduleScope.setOwnerPtr(ptr);
+            ge.getMemory().popTempRoots(rootsMark);
+            // modules are alive for the whole program, even before being bound by an import statement
+            ge.getMemory().addPermanentPtr(ptr);
 
             ge.addImportedModulePtr(entry.getKey(), ptr);
         }
@@ -161,7 +172,7 @@ public class SplInterpreter {
                             callingEnv,
                             callingLfp);
                 } else {
-                    return new Int(arg.intValue());
+                    return Int.valueOf(arg.intValue());
                 }
             }
         };
@@ -225,7 +236,7 @@ public class SplInterpreter {
                             callingEnv,
                             callingLfp);
                 } else {
-                    return new Char((char) arg.intValue());
+                    return Char.valueOf((char) arg.intValue());
                 }
             }
         };
@@ -257,7 +268,7 @@ public class SplInterpreter {
                             callingEnv,
                             callingLfp);
                 } else {
-                    return new SplByte((byte) arg.intValue());
+                    return SplByte.valueOf((byte) arg.intValue());
                 }
             }
         };
@@ -420,6 +431,7 @@ public class SplInterpreter {
                 LineFilePos.LF_INTERPRETER);
 
         Reference argPtr = (Reference) argP;
+        int rootsMark = globalEnvironment.getMemory().addTempPtr(argPtr);
         for (int i = 0; i < args.length; ++i) {
 
             // create String instance
@@ -428,6 +440,7 @@ public class SplInterpreter {
             );
             SplArray.setItemAtIndex(argPtr, i, strIns, globalEnvironment, LineFilePos.LF_INTERPRETER);
         }
+        globalEnvironment.getMemory().popTempRoots(rootsMark);
         return EvaluatedArguments.of(argPtr);
     }
 
@@ -481,7 +494,14 @@ public class SplInterpreter {
         Memory memory = new Memory(
                 new Memory.Options(
                         Configs.getInt("stackLimit", 512),
-                        Configs.getInt("heapSize", 8192),
+                        Configs.getInt("heapInitial", 8192),
+                        Configs.getInt("heapMax", 1048576),
+                        Configs.getInt("nurserySize", 2048),
+                        Configs.getInt("gcThreads", 0),
+                        Configs.getBoolean("incrementalGc", false),
+                        Configs.getInt("gcPauseTarget", 5),
+                        argumentParser.isBytecode(),
+                        argumentParser.isJit(),
                         argumentParser.isCheckContract(),
                         Configs.getBoolean("assert", true)));
         if (argumentParser.isGcInfo()) memory.debugs.setPrintGcRes(true);
@@ -511,15 +531,7 @@ public class SplInterpreter {
 
             long runBegin = System.currentTimeMillis();
 
-            try {
-                if (evaluateGlobal(parseResult)) {
-                    callMain(argumentParser.getSplArgs());
-                }
-            } catch (ClassCastException cce) {
-                cce.printStackTrace();
-                Utilities.removeErrorAndPrint(globalEnvironment, Main.LF_MAIN);
-                throw new NativeTypeError();
-            }
+            runProgram(parseResult, argumentParser.getSplArgs());
 
             long processEnd = System.currentTimeMillis();
 
@@ -528,12 +540,15 @@ public class SplInterpreter {
             }
             if (argumentParser.isTimer()) {
                 out.printf(
-                        "Parse time: %d ms, cache time: %d ms, VM startup time: %d ms, running time: %d ms.%n, total gc time %d ms",
+                        "Parse time: %d ms, cache time: %d ms, VM startup time: %d ms, running time: %d ms.%n, " +
+                                "total gc time %d ms (%d minor, %d major)",
                         cacheBegin - parseBegin,
                         vmStartBegin - cacheBegin,
                         runBegin - vmStartBegin,
                         processEnd - runBegin,
-                        globalEnvironment.getMemory().getTotalGcTime()
+                        globalEnvironment.getMemory().getTotalGcTime(),
+                        globalEnvironment.getMemory().getMinorGcCount(),
+                        globalEnvironment.getMemory().getMajorGcCount()
                 );
             }
         } else {
@@ -541,6 +556,37 @@ public class SplInterpreter {
         }
     }
 
+    /**
+     * Runs a program compiled by {@code Splc}, with the options in the config file.
+     *
+     * @param program the compiled program, in the format written by {@code SplCacheSaver}
+     * @param args    the arguments of the spl main function, or an empty array to pass the path of the source file
+     * @throws Exception if the program cannot be read
+     */
+    public void runCompiled(InputStream program, String[] args) throws Exception {
+        CacheReconstructor cr = new CacheReconstructor(program);
+        ParseResult parseResult = cr.reconstruct();
+
+        ArgumentParser argumentParser = ArgumentParser.ofCompiledProgram(
+                args.length == 0 ? new String[]{cr.getSrcAbsPath()} : args);
+        initMemoryNoImport(argumentParser);
+        importModules(globalEnvironment, cr.getParsedModules());
+
+        runProgram(parseResult, argumentParser.getSplArgs());
+    }
+
+    private void runProgram(ParseResult parseResult, String[] splArgs) {
+        try {
+            if (evaluateGlobal(parseResult)) {
+                callMain(splArgs);
+            }
+        } catch (ClassCastException cce) {
+            cce.printStackTrace();
+            Utilities.removeErrorAndPrint(globalEnvironment, Main.LF_MAIN);
+            throw new NativeTypeError();
+        }
+    }
+
     public void setGlobalEnvironment(GlobalEnvironment globalEnvironment) {
         this.globalEnvironment = globalEnvironment;
     }
@@ -0,0 +1,31 @@
+package spl;
+
+import spl.util.Configs;
+
+import java.io.InputStream;
+
+/**
+ * The main class of the jars written by {@code Splc}, which runs the compiled program packaged in the jar.
+ * <p>
+ * All command line arguments are passed to the spl main function. Options are read from the config file.
+ */
+public class SplLauncher {
+
+    /**
+     * Name of the jar entry holding the compiled program.
+     */
+    static final String PROGRAM_ENTRY = "spl/program.spc";
+
+    private SplLauncher() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configs.load();
+        InputStream program = SplLauncher.class.getClassLoader().getResourceAsStream(PROGRAM_ENTRY);
+        if (program == null) {
+            System.err.println("No compiled program found in the class path.");
+            return;
+        }
+        new SplInterpreter().runCompiled(program, args);
+    }
+}
@@ -0,0 +1,142 @@
+package spl;
+
+import spl.lexer.FileTokenizer;
+import spl.lexer.TextProcessResult;
+import spl.lexer.TextProcessor;
+import spl.lexer.TokenizeResult;
+import spl.parser.ParseResult;
+import spl.parser.Parser;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.jar.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The ahead-of-time compiler, which packages a program and all the modules it imports in a runnable jar.
+ * <p>
+ * The jar holds the parsed and resolved program, in the format written by {@code SplCacheSaver}, and the runtime
+ * classes of the interpreter. It starts with {@code SplLauncher}, so running it skips tokenizing and parsing. The
+ * runtime leaves out the tools and the IDLE, which need javafx.
+ * <p>
+ * Usage: {@code splc [-nl] source.sp [output.jar]}, where {@code -nl} does not import lang. By default, the jar is
+ * written next to the source file.
+ */
+public class Splc {
+
+    /**
+     * Prefixes of the class files that are not part of the runtime.
+     */
+    private static final String[] EXCLUDED = {
+            "spl/tools/", "spl/IDLE", "spl/Visualizer", "spl/Console", "spl/Splc", "module-info.class"
+    };
+
+    private Splc() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean importLang = true;
+        int index = 0;
+        if (index < args.length && (args[index].equals("-nl") || args[index].equals("--noLang"))) {
+            importLang = false;
+            index++;
+        }
+        if (index >= args.length || index + 2 < args.length) {
+            System.err.println("Usage: splc [-nl] source.sp [output.jar]");
+            return;
+        }
+        File srcFile = new File(args[index]);
+        if (!srcFile.exists()) {
+            System.err.println("Source file '" + args[index] + "' does not exist.");
+            return;
+        }
+        String srcPath = srcFile.getPath();
+        File jarFile = new File(index + 1 < args.length ?
+                args[index + 1] :
+                srcPath.substring(0, srcPath.length() - (srcPath.endsWith(".sp") ? 3 : 0)) + ".jar");
+
+        compile(srcFile, importLang, jarFile);
+        System.out.println("Compiled '" + srcFile + "' to '" + jarFile + "'.");
+    }
+
+    /**
+     * Parses a program and the modules it imports, and writes them with the runtime to a jar.
+     *
+     * @param srcFile    the main source file
+     * @param importLang whether lang is imported
+     * @param jarFile    the jar to write
+     * @throws Exception if the program cannot be parsed or the jar cannot be written
+     */
+    public static void compile(File srcFile, boolean importLang, File jarFile) throws Exception {
+        TokenizeResult rootToken = new FileTokenizer(srcFile, importLang).tokenize();
+        TextProcessResult processed = new TextProcessor(rootToken, importLang).process();
+        Parser parser = new Parser(processed);
+        ParseResult parseResult = parser.parse();
+        LinkedHashMap<String, ParseResult> parsedModules = SplInterpreter.parseImportedModules(
+                processed.importedPaths,
+                parser.getStringLiterals()
+        );
+        SplCacheSaver saver = new SplCacheSaver(srcFile, parseResult, parsedModules);
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, SplLauncher.class.getName());
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile), manifest)) {
+            jar.putNextEntry(new JarEntry(SplLauncher.PROGRAM_ENTRY));
+            saver.write(jar);
+            jar.closeEntry();
+            copyRuntime(jar);
+        }
+    }
+
+    /**
+     * Copies the runtime classes from the class directory or jar this class is loaded from.
+     */
+    private static void copyRuntime(JarOutputStream jar) throws IOException, URISyntaxException {
+        Path location = Path.of(Splc.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (Files.isDirectory(location)) {
+            List<Path> classFiles;
+            try (Stream<Path> paths = Files.walk(location)) {
+                classFiles = paths.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                String name = location.relativize(classFile).toString().replace(File.separatorChar, '/');
+                if (isRuntimeClass(name)) {
+                    jar.putNextEntry(new JarEntry(name));
+                    Files.copy(classFile, jar);
+                    jar.closeEntry();
+                }
+            }
+        } else {
+            try (JarFile runtimeJar = new JarFile(location.toFile())) {
+                Enumeration<JarEntry> entries = runtimeJar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (entry.getName().endsWith(".class") && isRuntimeClass(entry.getName())) {
+                        jar.putNextEntry(new JarEntry(entry.getName()));
+                        try (InputStream in = runtimeJar.getInputStream(entry)) {
+                            in.transferTo(jar);
+                        }
+                        jar.closeEntry();
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isRuntimeClass(String name) {
+        for (String prefix : EXCLUDED) {
+            if (name.startsWith(prefix)) return false;
+        }
+        return true;
+    }
+}
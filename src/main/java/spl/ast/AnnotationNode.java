@@ -36,10 +36,12 @@ public class AnnotationNode extends NonEvaluate {
 
         Reference arrayRef = SplArray.createArray(SplElement.POINTER, size, env, lineFilePos);
         if (env.hasException()) return null;
+        int rootsMark = env.getMemory().addTempPtr(arrayRef);
         for (int i = 0; i < size; i++) {
             AnnotationNode an = annotationNodes.get(i);
             Instance.InstanceAndPtr iap = Instance.createInstanceAndAllocate(an.annotation, env, lineFilePos);
             if (iap == null) {
+                env.getMemory().popTempRoots(rootsMark);
                 return null;
             }
             // do not set 'annClass' before loop, since the class 'Annotation' might not be evaluated.
@@ -52,10 +54,12 @@ public class AnnotationNode extends NonEvaluate {
                         "Annotations must extends 'Annotation'.",
                         lineFilePos
                 );
+                env.getMemory().popTempRoots(rootsMark);
                 return null;
             }
             SplArray.setItemAtIndex(arrayRef, i, iap.pointer, env, lineFilePos);
         }
+        env.getMemory().popTempRoots(rootsMark);
         return arrayRef;
     }
 
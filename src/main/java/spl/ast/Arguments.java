@@ -10,6 +10,7 @@ import spl.interpreter.splObjects.Instance;
 import spl.interpreter.splObjects.SplArray;
 import spl.interpreter.splObjects.SplMethod;
 import spl.interpreter.splObjects.SplObject;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -26,11 +27,10 @@ public class Arguments extends NonEvaluate {
 
     private static void addArrayToArgs(Reference arrayPtr, EvaluatedArguments evaluatedArguments,
                                        Environment env, LineFilePos lineFilePos) {
-        int arrAddr = arrayPtr.getPtr();
         SplArray array = env.getMemory().get(arrayPtr);
         for (int j = 0; j < array.length.value; j++) {
             evaluatedArguments.positionalArgs.add(
-                    Utilities.unwrap(env.getMemory().getPrimitive(arrAddr + j + 1), env, lineFilePos)
+                    Utilities.unwrap(SplArray.getItem(arrayPtr, j, env.getMemory()), env, lineFilePos)
             );
         }
     }
@@ -84,6 +84,7 @@ public class Arguments extends NonEvaluate {
 
     public EvaluatedArguments evalArgs(Environment callingEnv) {
         EvaluatedArguments evaluatedArguments = new EvaluatedArguments();
+        int rootsMark = callingEnv.getMemory().addTempArgs(evaluatedArguments);
 
         boolean kwargBegins = false;
 
@@ -179,6 +180,7 @@ public class Arguments extends NonEvaluate {
                 }
             }
         }
+        callingEnv.getMemory().popTempRoots(rootsMark);
         return evaluatedArguments;
     }
 
@@ -191,4 +193,9 @@ public class Arguments extends NonEvaluate {
     public String toString() {
         return "Arg" + line;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        line.resolve(resolver);
+    }
 }
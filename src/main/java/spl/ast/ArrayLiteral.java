@@ -4,6 +4,7 @@ import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.Instance;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -41,4 +42,9 @@ public class ArrayLiteral extends Expression {
     protected void internalSave(BytesOut out) throws IOException {
         content.save(out);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        content.resolve(resolver);
+    }
 }
@@ -6,6 +6,7 @@ import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.splObjects.Instance;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -63,4 +64,9 @@ public class AssertStmt extends UnaryStmt {
                 lineFile
         );
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
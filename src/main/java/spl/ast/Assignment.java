@@ -8,6 +8,7 @@ import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.*;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.Constants;
 import spl.util.LineFilePos;
@@ -20,7 +21,7 @@ public class Assignment extends BinaryExpr {
 
     public static void assignment(Node key, SplElement value, Environment env, LineFilePos lineFile) {
         if (key instanceof NameNode) {
-            env.setVar(((NameNode) key).getName(), value, lineFile);
+            ((NameNode) key).assign(value, env, lineFile);
         } else if (key instanceof Declaration) {
             key.evaluate(env);
             env.setVar(((Declaration) key).declaredName, value, lineFile);
@@ -113,8 +114,15 @@ public class Assignment extends BinaryExpr {
     @Override
     protected SplElement internalEval(Environment env) {
         SplElement rightRes = right.evaluate(env);
+        if (env.hasException()) return Undefined.ERROR;
 
         assignment(left, rightRes, env, getLineFile());
         return rightRes;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        right.resolve(resolver);
+        left.resolve(resolver);
+    }
 }
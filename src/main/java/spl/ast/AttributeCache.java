@@ -0,0 +1,50 @@
+package spl.ast;
+
+import spl.interpreter.env.InstanceEnvironment;
+import spl.interpreter.env.VarEntry;
+
+/**
+ * A polymorphic inline cache of the locations of an attribute in instances, keyed by class id.
+ * <p>
+ * The cache holds the locations for up to {@code MAX_CLASSES} classes. Once it sees more classes, it becomes
+ * megamorphic and is no longer used, so that the attribute is looked up by name.
+ */
+final class AttributeCache {
+
+    private static final int MAX_CLASSES = 4;
+
+    private final String name;
+    private final int[] classIds = new int[MAX_CLASSES];
+    private final InstanceEnvironment.AttributeLocation[] locations =
+            new InstanceEnvironment.AttributeLocation[MAX_CLASSES];
+    private int size;
+    private boolean megamorphic;
+
+    AttributeCache(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param env the environment of an instance
+     * @return the entry of the attribute in {@code env}, or {@code null} if it must be looked up by name
+     */
+    VarEntry lookup(InstanceEnvironment env) {
+        if (megamorphic) return null;
+        int classId = env.locationClassId();
+        if (classId < 0) return null;
+        for (int i = 0; i < size; i++) {
+            if (classIds[i] == classId) return env.entryAt(locations[i]);
+        }
+
+        InstanceEnvironment.AttributeLocation location = env.locate(name);
+        if (location == null) return null;
+        if (size == MAX_CLASSES) {
+            megamorphic = true;
+            return null;
+        }
+        classIds[size] = classId;
+        locations[size] = location;
+        size++;
+        return env.entryAt(location);
+    }
+}
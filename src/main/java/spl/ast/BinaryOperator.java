@@ -1,17 +1,20 @@
 package spl.ast;
 
 import spl.interpreter.EvaluatedArguments;
+import spl.interpreter.Memory;
 import spl.interpreter.env.Environment;
+import spl.interpreter.env.GlobalEnvironment;
+import spl.interpreter.env.InstanceEnvironment;
+import spl.interpreter.env.VarEntry;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.*;
-import spl.interpreter.splObjects.Function;
-import spl.interpreter.splObjects.Instance;
-import spl.interpreter.splObjects.SplMethod;
-import spl.interpreter.splObjects.SplObject;
+import spl.interpreter.splObjects.*;
 import spl.lexer.SyntaxError;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,72 +53,241 @@ public class BinaryOperator extends BinaryExpr {
             "is", "is not"
     );
 
+    // operator codes used by specialized evaluations, bitwise operators are after all others
+    private static final int OP_NONE = 0;
+    private static final int OP_ADD = 1;
+    private static final int OP_SUB = 2;
+    private static final int OP_MUL = 3;
+    private static final int OP_DIV = 4;
+    private static final int OP_MOD = 5;
+    private static final int OP_EQ = 6;
+    private static final int OP_NE = 7;
+    private static final int OP_GT = 8;
+    private static final int OP_LT = 9;
+    private static final int OP_GE = 10;
+    private static final int OP_LE = 11;
+    private static final int OP_L_SHIFT = 12;
+    private static final int OP_R_SHIFT = 13;
+    private static final int OP_R_SHIFT_LOGIC = 14;
+    private static final int OP_B_AND = 15;
+    private static final int OP_B_OR = 16;
+    private static final int OP_B_XOR = 17;
+
     private final int type;
+    /**
+     * The operator as a number, or {@code OP_NONE} if this operator is never specialized.
+     */
+    private final int opCode;
+    /**
+     * Operand types seen by this node, one of the states in {@code Specialization}.
+     */
+    private int state = Specialization.UNINITIALIZED;
+    /**
+     * Name of the method that overloads this operator, or {@code null} if this operator cannot be overloaded.
+     */
+    private final String opFnName;
+    /**
+     * Locations of the overloading method in the instances seen by this node, created on first use.
+     */
+    private AttributeCache opFnCache;
 
     public BinaryOperator(String operator, int type, LineFilePos lineFile) {
         super(operator, lineFile);
 
         this.type = type;
+        this.opCode = opCodeOf(operator, type);
+        this.opFnName = opFnNameOf(operator, type);
+    }
+
+    /**
+     * @return one of {@code ARITHMETIC}, {@code LOGICAL}, {@code LAZY} and {@code BITWISE}
+     */
+    public int getType() {
+        return type;
+    }
+
+    private static String opFnNameOf(String operator, int type) {
+        if (type == ARITHMETIC) return ARITHMETIC_OP_MAP.get(operator);
+        else if (type == LOGICAL) return LOGICAL_OP_MAP.get(operator);
+        else if (type == BITWISE) return BITWISE_OP_MAP.get(operator);
+        else return null;
+    }
+
+    private static int opCodeOf(String operator, int type) {
+        if (type == ARITHMETIC) {
+            return switch (operator) {
+                case "+" -> OP_ADD;
+                case "-" -> OP_SUB;
+                case "*" -> OP_MUL;
+                case "/" -> OP_DIV;
+                case "%" -> OP_MOD;
+                default -> OP_NONE;
+            };
+        } else if (type == LOGICAL) {
+            return switch (operator) {
+                case "==" -> OP_EQ;
+                case "!=" -> OP_NE;
+                case ">" -> OP_GT;
+                case "<" -> OP_LT;
+                case ">=" -> OP_GE;
+                case "<=" -> OP_LE;
+                default -> OP_NONE;
+            };
+        } else if (type == BITWISE) {
+            return switch (operator) {
+                case "<<" -> OP_L_SHIFT;
+                case ">>" -> OP_R_SHIFT;
+                case ">>>" -> OP_R_SHIFT_LOGIC;
+                case "&" -> OP_B_AND;
+                case "|" -> OP_B_OR;
+                case "^" -> OP_B_XOR;
+                default -> OP_NONE;
+            };
+        }
+        return OP_NONE;
     }
 
-    private static SplElement pointerBitwise(Reference leftPtr,
-                                             SplElement rightEle,
-                                             String operator,
-                                             Environment env,
-                                             LineFilePos lineFilePos) {
+    private SplElement pointerBitwise(Reference leftPtr, SplElement rightEle, Environment env) {
         SplObject leftObj = env.getMemory().get(leftPtr);
         if (leftObj instanceof Instance) {
-            return callOpFunction(leftPtr,
-                    (Instance) leftObj,
-                    rightEle,
-                    operator,
-                    BITWISE_OP_MAP.get(operator),
-                    env,
-                    lineFilePos);
+            return callOpFunction(leftPtr, (Instance) leftObj, rightEle, false, env);
         } else {
             return SplInvokes.throwExceptionWithError(
                     env,
                     Constants.TYPE_ERROR,
                     "Binary operator type error. Left side: ",
-                    lineFilePos);
+                    lineFile);
         }
     }
 
-    private static SplElement callOpFunction(Reference leftPtr,
-                                             Instance leftObj,
-                                             SplElement rightEle,
-                                             String operator,
-                                             String fnName,
-                                             Environment env,
-                                             LineFilePos lineFilePos) {
-        if (fnName == null) return SplInvokes.throwExceptionWithError(
+    /**
+     * Calls the method of the left operand that overloads this operator.
+     *
+     * @param leftPtr   the left operand
+     * @param leftObj   the instance pointed by {@code leftPtr}
+     * @param rightEle  the right operand
+     * @param wrapRight whether a primitive right operand is wrapped before being passed to the method
+     * @param env       the environment
+     * @return the result
+     */
+    private SplElement callOpFunction(Reference leftPtr,
+                                      Instance leftObj,
+                                      SplElement rightEle,
+                                      boolean wrapRight,
+                                      Environment env) {
+        if (opFnName == null) return SplInvokes.throwExceptionWithError(
                 env,
                 Constants.TYPE_ERROR,
                 "Type '" + leftObj.getClass().getName() + "' does not support operator " + operator,
-                lineFilePos
+                lineFile
         );
-        Environment instanceEnv = leftObj.getEnv();
-        SplElement fnEle = instanceEnv.get(fnName, lineFilePos);
+        InstanceEnvironment instanceEnv = leftObj.getEnv();
+        if (opFnCache == null) opFnCache = new AttributeCache(opFnName);
+        VarEntry fnEntry = opFnCache.lookup(instanceEnv);
+        SplElement fnEle = fnEntry == null ? instanceEnv.get(opFnName, lineFile) : fnEntry.getValue();
         if (fnEle == Undefined.ERROR) return Undefined.ERROR;
-        Reference fnPtr = (Reference) fnEle;
-        SplMethod opFn = env.getMemory().get(fnPtr);
-        return opFn.call(EvaluatedArguments.of(leftPtr, rightEle), env, lineFilePos);
+        SplMethod opFn = env.getMemory().get((Reference) fnEle);
+
+        SplElement nativeRes = nativeOperation(opFn.methodDefClassId, leftPtr, leftObj, rightEle, env);
+        if (nativeRes != null) return nativeRes;
+
+        if (wrapRight && SplElement.isPrimitive(rightEle)) {
+            rightEle = Utilities.primitiveToWrapper(rightEle, env, lineFile);
+        }
+        return opFn.call(EvaluatedArguments.of(leftPtr, rightEle), env, lineFile);
+    }
+
+    /**
+     * Evaluates an overloading method of the built-in classes 'Object', 'String' and 'Wrapper' natively, with the
+     * same result as calling it.
+     *
+     * @param methodClassId id of the class that defines the overloading method
+     * @param leftPtr       the left operand
+     * @param leftObj       the instance pointed by {@code leftPtr}
+     * @param rightEle      the right operand, not wrapped
+     * @param env           the environment
+     * @return the result, or {@code null} if the method must be called
+     */
+    private SplElement nativeOperation(int methodClassId,
+                                       Reference leftPtr,
+                                       Instance leftObj,
+                                       SplElement rightEle,
+                                       Environment env) {
+        GlobalEnvironment ge = env.globalEnv;
+        if (methodClassId == ge.getStringClassId()) {
+            if (leftObj.getEnv().locationClassId() != methodClassId) return null;
+            if (opCode == OP_ADD) return stringAdd(leftObj, rightEle, env);
+            else if (opCode == OP_EQ) return stringEquals(leftObj, rightEle, env);
+        } else if (methodClassId == ge.getWrapperClassId()) {
+            // '__ne__' calls '__eq__', which may be overridden
+            if (opCode >= OP_ADD && opCode <= OP_LT && opCode != OP_NE) {
+                return wrapperOperation(leftObj, rightEle, env);
+            }
+        } else if (methodClassId == ge.getObjectClassId()) {
+            if (opCode == OP_EQ) {
+                return Bool.boolValueOf(rightEle instanceof Reference &&
+                        ((Reference) rightEle).getPtr() == leftPtr.getPtr());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 'String.__add__', which appends {@code str(other)}.
+     */
+    private SplElement stringAdd(Instance leftObj, SplElement rightEle, Environment env) {
+        String leftStr = SplInvokes.splStringToJavaString(leftObj, env, lineFile);
+        String rightStr = SplInvokes.getString(rightEle, env, lineFile);
+        if (env.hasException()) return Undefined.ERROR;
+        return StringLiteral.createString((leftStr + rightStr).toCharArray(), env, lineFile);
     }
 
-    private static SplElement pointerNumericArithmetic(Reference leftPtr,
-                                                       SplElement rightEle,
-                                                       String operator,
-                                                       Environment env,
-                                                       LineFilePos lineFile) {
+    /**
+     * 'String.__eq__', only if the right operand is a string or a primitive.
+     */
+    private SplElement stringEquals(Instance leftObj, SplElement rightEle, Environment env) {
+        if (SplElement.isPrimitive(rightEle)) return Bool.FALSE;
+        Instance rightObj = instanceOf((Reference) rightEle, env);
+        if (rightObj == null || rightObj.getEnv().locationClassId() != env.globalEnv.getStringClassId()) return null;
+        return Bool.boolValueOf(Arrays.equals(stringChars(leftObj, env), stringChars(rightObj, env)));
+    }
+
+    private char[] stringChars(Instance stringObj, Environment env) {
+        Reference chars = (Reference) stringObj.getEnv().get(Constants.STRING_CHARS, lineFile);
+        return SplArray.toJavaCharArray(chars, env.getMemory());
+    }
+
+    /**
+     * The arithmetic and comparison methods of 'Wrapper', which apply this operator to the wrapped values, only if
+     * the right operand is a wrapper or a primitive.
+     */
+    private SplElement wrapperOperation(Instance leftObj, SplElement rightEle, Environment env) {
+        int wrapperClassId = env.globalEnv.getWrapperClassId();
+        SplElement rightValue;
+        if (SplElement.isPrimitive(rightEle)) {
+            rightValue = rightEle;
+        } else {
+            Instance rightObj = instanceOf((Reference) rightEle, env);
+            if (rightObj == null || rightObj.getEnv().levelOfClass(wrapperClassId) == null) return null;
+            rightValue = rightObj.getEnv().get(Constants.WRAPPER_ATTR, lineFile);
+        }
+        SplElement leftValue = leftObj.getEnv().levelOfClass(wrapperClassId).get(Constants.WRAPPER_ATTR, lineFile);
+
+        SplElement result = evalGeneric(leftValue, rightValue, env);
+        if (result == Undefined.ERROR || type != ARITHMETIC) return result;
+        return Utilities.primitiveToWrapper(result, env, lineFile);
+    }
+
+    private static Instance instanceOf(Reference ptr, Environment env) {
+        if (ptr.getPtr() == 0) return null;
+        SplObject obj = env.getMemory().get(ptr);
+        return obj instanceof Instance ? (Instance) obj : null;
+    }
+
+    private SplElement pointerNumericArithmetic(Reference leftPtr, SplElement rightEle, Environment env) {
         SplObject leftObj = env.getMemory().get(leftPtr);
         if (leftObj instanceof Instance) {
-            return callOpFunction(leftPtr,
-                    (Instance) leftObj,
-                    rightEle,
-                    operator,
-                    ARITHMETIC_OP_MAP.get(operator),
-                    env,
-                    lineFile);
+            return callOpFunction(leftPtr, (Instance) leftObj, rightEle, false, env);
         } else {
             return SplInvokes.throwExceptionWithError(
                     env,
@@ -125,21 +297,19 @@ public class BinaryOperator extends BinaryExpr {
         }
     }
 
-    private static SplElement primitivePointerArithmetic(SplElement leftEle, Reference rightEle,
-                                                         String operator, Environment env,
-                                                         LineFilePos lineFile) {
+    private SplElement primitivePointerArithmetic(SplElement leftEle, Reference rightEle, Environment env) {
         Reference leftWrpPtr = Utilities.primitiveToWrapper(leftEle, env, lineFile);
-        return pointerNumericArithmetic(leftWrpPtr, rightEle, operator, env, lineFile);
+        return pointerNumericArithmetic(leftWrpPtr, rightEle, env);
     }
 
     private static SplElement bitwise(String op, Environment env, long l, long r, LineFilePos lineFile) {
         return switch (op) {
-            case "<<" -> new Int(l << r);
-            case ">>" -> new Int(l >> r);
-            case ">>>" -> new Int(l >>> r);
-            case "&" -> new Int(l & r);
-            case "|" -> new Int(l | r);
-            case "^" -> new Int(l ^ r);
+            case "<<" -> Int.valueOf(l << r);
+            case ">>" -> Int.valueOf(l >> r);
+            case ">>>" -> Int.valueOf(l >>> r);
+            case "&" -> Int.valueOf(l & r);
+            case "|" -> Int.valueOf(l | r);
+            case "^" -> Int.valueOf(l ^ r);
             default -> SplInvokes.throwExceptionWithError(
                     env,
                     Constants.TYPE_ERROR,
@@ -150,11 +320,11 @@ public class BinaryOperator extends BinaryExpr {
 
     private static SplElement simpleArithmeticInt(String op, Environment env, long l, long r, LineFilePos lineFile) {
         return switch (op) {
-            case "+" -> new Int(l + r);
-            case "-" -> new Int(l - r);
-            case "*" -> new Int(l * r);
-            case "/" -> new Int(l / r);
-            case "%" -> new Int(l % r);
+            case "+" -> Int.valueOf(l + r);
+            case "-" -> Int.valueOf(l - r);
+            case "*" -> Int.valueOf(l * r);
+            case "/" -> Int.valueOf(l / r);
+            case "%" -> Int.valueOf(l % r);
             default -> SplInvokes.throwExceptionWithError(
                     env,
                     Constants.TYPE_ERROR,
@@ -178,30 +348,26 @@ public class BinaryOperator extends BinaryExpr {
         };
     }
 
-    private static SplElement pointerLogical(String op, Reference l, Reference r, Environment env, LineFilePos lineFile) {
+    /**
+     * @param r the right operand, which is wrapped only if it is passed to an overloading method
+     */
+    private SplElement pointerLogical(String op, Reference l, SplElement r, Environment env) {
         if (op.equals("is")) {
-            return Bool.boolValueOf(l.getPtr() == r.getPtr());
+            return Bool.boolValueOf(r instanceof Reference && l.getPtr() == ((Reference) r).getPtr());
         } else if (op.equals("is not")) {
-            return Bool.boolValueOf(l.getPtr() != r.getPtr());
+            return Bool.boolValueOf(!(r instanceof Reference) || l.getPtr() != ((Reference) r).getPtr());
         } else {
             SplObject leftObj = env.getMemory().get(l);
             if (leftObj instanceof Instance) {
-                SplElement res = callOpFunction(
-                        l,
-                        (Instance) leftObj,
-                        r,
-                        op,
-                        LOGICAL_OP_MAP.get(op),
-                        env,
-                        lineFile);
+                SplElement res = callOpFunction(l, (Instance) leftObj, r, true, env);
                 if (res instanceof Bool) {
                     return res;
                 }
             } else if (leftObj != null) {
                 if (op.equals("==")) {
-                    return pointerLogical("is", l, r, env, lineFile);
+                    return pointerLogical("is", l, r, env);
                 } else if (op.equals("!=")) {
-                    return pointerLogical("is not", l, r, env, lineFile);
+                    return pointerLogical("is not", l, r, env);
                 }
             }
         }
@@ -257,16 +423,97 @@ public class BinaryOperator extends BinaryExpr {
 
     @Override
     protected SplElement internalEval(Environment env) {
-        if (type == ARITHMETIC) {
-            SplElement leftEle = left.evaluate(env);
-            SplElement rightEle = right.evaluate(env);
-            if (env.hasException()) return Undefined.ERROR;
+        if (type == LAZY) return lazyEval(env);
+
+        // objects returned by operands are not reachable from any environment until this operation finishes
+        Memory memory = env.getMemory();
+        int rootsMark = memory.tempRootsMark();
+        SplElement leftEle = left.evaluate(env);
+        if (leftEle instanceof Reference) memory.addTempPtr((Reference) leftEle);
+        SplElement rightEle = right.evaluate(env);
+        if (rightEle instanceof Reference) memory.addTempPtr((Reference) rightEle);
+
+        SplElement result = env.hasException() ? Undefined.ERROR : evalOperands(leftEle, rightEle, env);
+
+        memory.popTempRoots(rootsMark);
+        return result;
+    }
+
+    /**
+     * Evaluates the operation with the specialized state of this node, or generically if the operand types do not
+     * match the state.
+     * <p>
+     * The operands are evaluated by the caller, which keeps pointer operands reachable until this method returns.
+     * This does not apply to lazy operators.
+     */
+    public SplElement evalOperands(SplElement leftEle, SplElement rightEle, Environment env) {
+        if (state == Specialization.UNINITIALIZED) state = initialState(leftEle, rightEle);
+        if (state == Specialization.INT) {
+            if (leftEle instanceof Int && rightEle instanceof Int)
+                return intOperation(((Int) leftEle).value, ((Int) rightEle).value);
+            state = Specialization.GENERIC;
+        } else if (state == Specialization.FLOAT) {
+            if (leftEle instanceof SplFloat && rightEle instanceof SplFloat)
+                return floatOperation(((SplFloat) leftEle).value, ((SplFloat) rightEle).value);
+            state = Specialization.GENERIC;
+        }
+        return evalGeneric(leftEle, rightEle, env);
+    }
+
+    private int initialState(SplElement leftEle, SplElement rightEle) {
+        if (opCode == OP_NONE) return Specialization.GENERIC;
+        int operandState = Specialization.of(leftEle, rightEle);
+        if (operandState == Specialization.FLOAT && opCode >= OP_L_SHIFT) return Specialization.GENERIC;
+        return operandState;
+    }
+
+    private SplElement intOperation(long l, long r) {
+        return switch (opCode) {
+            case OP_ADD -> Int.valueOf(l + r);
+            case OP_SUB -> Int.valueOf(l - r);
+            case OP_MUL -> Int.valueOf(l * r);
+            case OP_DIV -> Int.valueOf(l / r);
+            case OP_MOD -> Int.valueOf(l % r);
+            case OP_EQ -> Bool.boolValueOf(l == r);
+            case OP_NE -> Bool.boolValueOf(l != r);
+            case OP_GT -> Bool.boolValueOf(l > r);
+            case OP_LT -> Bool.boolValueOf(l < r);
+            case OP_GE -> Bool.boolValueOf(l >= r);
+            case OP_LE -> Bool.boolValueOf(l <= r);
+            case OP_L_SHIFT -> Int.valueOf(l << r);
+            case OP_R_SHIFT -> Int.valueOf(l >> r);
+            case OP_R_SHIFT_LOGIC -> Int.valueOf(l >>> r);
+            case OP_B_AND -> Int.valueOf(l & r);
+            case OP_B_OR -> Int.valueOf(l | r);
+            case OP_B_XOR -> Int.valueOf(l ^ r);
+            default -> throw new SyntaxError("Unexpected error. ", lineFile);
+        };
+    }
 
+    private SplElement floatOperation(double l, double r) {
+        return switch (opCode) {
+            case OP_ADD -> new SplFloat(l + r);
+            case OP_SUB -> new SplFloat(l - r);
+            case OP_MUL -> new SplFloat(l * r);
+            case OP_DIV -> new SplFloat(l / r);
+            case OP_MOD -> new SplFloat(l % r);
+            case OP_EQ -> Bool.boolValueOf(l == r);
+            case OP_NE -> Bool.boolValueOf(l != r);
+            case OP_GT -> Bool.boolValueOf(l > r);
+            case OP_LT -> Bool.boolValueOf(l < r);
+            case OP_GE -> Bool.boolValueOf(l >= r);
+            case OP_LE -> Bool.boolValueOf(l <= r);
+            default -> throw new SyntaxError("Unexpected error. ", lineFile);
+        };
+    }
+
+    private SplElement evalGeneric(SplElement leftEle, SplElement rightEle, Environment env) {
+        if (type == ARITHMETIC) {
             if (leftEle instanceof Reference) {
-                return pointerNumericArithmetic((Reference) leftEle, rightEle, operator, env, lineFile);
+                return pointerNumericArithmetic((Reference) leftEle, rightEle, env);
             } else {
                 if (rightEle instanceof Reference) {
-                    return primitivePointerArithmetic(leftEle, (Reference) rightEle, operator, env, lineFile);
+                    return primitivePointerArithmetic(leftEle, (Reference) rightEle, env);
                 }
 
                 if (leftEle.isIntLike()) {
@@ -287,12 +534,8 @@ public class BinaryOperator extends BinaryExpr {
                         lineFile);
             }
         } else if (type == BITWISE) {
-            SplElement leftEle = left.evaluate(env);
-            SplElement rightEle = right.evaluate(env);
-            if (env.hasException()) return Undefined.ERROR;
-
             if (leftEle instanceof Reference) {
-                return pointerBitwise((Reference) leftEle, rightEle, operator, env, lineFile);
+                return pointerBitwise((Reference) leftEle, rightEle, env);
             } else if (leftEle.isIntLike() && rightEle.isIntLike()) {
                 return bitwise(operator, env, leftEle.intValue(), rightEle.intValue(), lineFile);
             }
@@ -303,9 +546,8 @@ public class BinaryOperator extends BinaryExpr {
                     "Binary operator type error.",
                     lineFile);
         } else if (type == LOGICAL) {
-            SplElement leftTv = left.evaluate(env);
-            SplElement rightTv = right.evaluate(env);
-            if (env.hasException()) return Undefined.ERROR;
+            SplElement leftTv = leftEle;
+            SplElement rightTv = rightEle;
             SplElement result;
             if (SplElement.isPrimitive(leftTv)) {
                 if (rightTv instanceof Reference) {
@@ -317,9 +559,8 @@ public class BinaryOperator extends BinaryExpr {
                         return pointerLogical(
                                 operator,
                                 Utilities.primitiveToWrapper(leftTv, env, lineFile),
-                                (Reference) rightTv,
-                                env,
-                                lineFile);
+                                rightTv,
+                                env);
                     }
                 }
                 if (leftTv.isIntLike()) {
@@ -381,61 +622,76 @@ public class BinaryOperator extends BinaryExpr {
                             lineFile);
                 }
             } else {  // is pointer type
-                Reference leftPtr = (Reference) leftTv;
-                if (rightTv instanceof Reference) {
-                    Reference rightPtr = (Reference) rightTv;
-                    result = pointerLogical(operator, leftPtr, rightPtr, env, lineFile);
-                } else {
-                    result = pointerLogical(
-                            operator, leftPtr, Utilities.primitiveToWrapper(rightTv, env, lineFile), env, lineFile);
-                }
+                result = pointerLogical(operator, (Reference) leftTv, rightTv, env);
             }
             return result;
-        } else if (type == LAZY) {
-            // a and b = b if a else false
-            // a or b  = true if a else b
-            if (operator.equals("and")) {
-                Bool leftRes = Bool.evalBoolean(left, env, getLineFile());
+        }
+        throw new SyntaxError("Unexpected error. ", lineFile);
+    }
+
+    private SplElement lazyEval(Environment env) {
+        // a and b = b if a else false
+        // a or b  = true if a else b
+        if (operator.equals("and")) {
+            Bool leftRes = Bool.evalBoolean(left, env, getLineFile());
+            if (env.hasException()) return Undefined.ERROR;
+            if (leftRes.value) {
+                return Bool.evalBoolean(right, env, getLineFile());
+            } else {
+                return Bool.FALSE;
+            }
+        } else if (operator.equals("or")) {
+            SplElement leftRawRes = left.evaluate(env);
+            if (leftRawRes instanceof Bool) {
+                Bool leftRes = (Bool) leftRawRes;
                 if (env.hasException()) return Undefined.ERROR;
-                if (leftRes.value) {
+                if (!leftRes.value) {
                     return Bool.evalBoolean(right, env, getLineFile());
                 } else {
-                    return Bool.FALSE;
-                }
-            } else if (operator.equals("or")) {
-                SplElement leftRawRes = left.evaluate(env);
-                if (leftRawRes instanceof Bool) {
-                    Bool leftRes = (Bool) leftRawRes;
-                    if (env.hasException()) return Undefined.ERROR;
-                    if (!leftRes.value) {
-                        return Bool.evalBoolean(right, env, getLineFile());
-                    } else {
-                        return Bool.TRUE;
-                    }
-                } else if (leftRawRes instanceof Reference) {
-                    SplElement rightRes = right.evaluate(env);
-                    Reference orFn = (Reference) env.get(Constants.OR_FN, lineFile);
-                    Function function = env.getMemory().get(orFn);
-                    EvaluatedArguments ea = EvaluatedArguments.of(leftRawRes, rightRes);
-                    SplElement callRes = function.call(ea, env, lineFile);
-                    if (env.hasException()) {
-                        return Undefined.ERROR;
-                    }
-                    return callRes;
+                    return Bool.TRUE;
                 }
-                return SplInvokes.throwExceptionWithError(
-                        env,
-                        Constants.TYPE_ERROR,
-                        "Binary operator type error.",
-                        lineFile);
+            } else if (leftRawRes instanceof Reference) {
+                return orObject((Reference) leftRawRes, env);
             }
+            return SplInvokes.throwExceptionWithError(
+                    env,
+                    Constants.TYPE_ERROR,
+                    "Binary operator type error.",
+                    lineFile);
         }
         throw new SyntaxError("Unexpected error. ", lineFile);
     }
 
+    /**
+     * Evaluates the right operand of an 'or' whose left operand is an object, and passes both to the 'or' function.
+     *
+     * @param leftPtr the evaluated left operand
+     * @param env     the environment
+     * @return the result of the 'or' function
+     */
+    public SplElement orObject(Reference leftPtr, Environment env) {
+        int rootsMark = env.getMemory().addTempPtr(leftPtr);
+        SplElement rightRes = right.evaluate(env);
+        env.getMemory().popTempRoots(rootsMark);
+        Reference orFn = (Reference) env.get(Constants.OR_FN, lineFile);
+        Function function = env.getMemory().get(orFn);
+        EvaluatedArguments ea = EvaluatedArguments.of(leftPtr, rightRes);
+        SplElement callRes = function.call(ea, env, lineFile);
+        if (env.hasException()) {
+            return Undefined.ERROR;
+        }
+        return callRes;
+    }
+
     @Override
     protected void internalSave(BytesOut out) throws IOException {
         super.internalSave(out);
         out.writeInt(type);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        right.resolve(resolver);
+    }
 }
@@ -2,6 +2,7 @@ package spl.ast;
 
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -9,7 +10,9 @@ import java.io.IOException;
 public class BinaryOperatorAssignment extends BinaryExpr {
 
     private final int type;
-    private final Assignment assignment;  // do not save this
+    // do not save these, they share operands with this node and keep their specialized states across evaluations
+    private final BinaryOperator binaryOperator;
+    private final Assignment assignment;
 
     public BinaryOperatorAssignment(String operator, int type, LineFilePos lineFile) {
         super(operator, lineFile);
@@ -17,14 +20,26 @@ public class BinaryOperatorAssignment extends BinaryExpr {
         String realOp = operator.substring(0, operator.length() - 1);
         this.type = type;
 
-        BinaryOperator binaryOperator = new BinaryOperator(realOp, type, getLineFile());
-        binaryOperator.setLeft(left);
-        binaryOperator.setRight(right);
+        binaryOperator = new BinaryOperator(realOp, type, getLineFile());
         assignment = new Assignment(getLineFile());
-        assignment.setLeft(left);
         assignment.setRight(binaryOperator);
     }
 
+    @Override
+    public void setLeft(Expression left) {
+        super.setLeft(left);
+
+        binaryOperator.setLeft(left);
+        assignment.setLeft(left);
+    }
+
+    @Override
+    public void setRight(Expression right) {
+        super.setRight(right);
+
+        binaryOperator.setRight(right);
+    }
+
     public static BinaryOperatorAssignment reconstruct(BytesIn is, LineFilePos lineFilePos) throws Exception {
         String op = is.readString();
         Expression left = Reconstructor.reconstruct(is);
@@ -37,6 +52,13 @@ public class BinaryOperatorAssignment extends BinaryExpr {
         return boa;
     }
 
+    /**
+     * @return the operator node which computes the assigned value from the operands of this node
+     */
+    public BinaryOperator getOperation() {
+        return binaryOperator;
+    }
+
     @Override
     protected SplElement internalEval(Environment env) {
         return assignment.evaluate(env);
@@ -48,4 +70,10 @@ public class BinaryOperatorAssignment extends BinaryExpr {
 
         out.write(Utilities.intToBytes(type));
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        right.resolve(resolver);
+    }
 }
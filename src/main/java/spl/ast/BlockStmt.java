@@ -1,10 +1,14 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.interpreter.env.Scope;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
 import spl.util.Reconstructor;
+import spl.vm.Chunk;
+import spl.vm.VirtualMachine;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -13,6 +17,8 @@ import java.util.List;
 public class BlockStmt extends Statement {
 
     private final List<Line> children = new ArrayList<>();
+    private Scope scope;  // layout of the environment where this block is evaluated, nullable
+    private Chunk chunk;  // compiled on the first evaluation by the bytecode engine, nullable
 
     public BlockStmt(LineFilePos lineFile) {
         super(lineFile);
@@ -26,6 +32,29 @@ public class BlockStmt extends Statement {
         return children;
     }
 
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    public Chunk getChunk() {
+        return chunk;
+    }
+
+    public void setChunk(Chunk chunk) {
+        this.chunk = chunk;
+    }
+
+    /**
+     * @return {@code false} if this block declares nothing and can be evaluated in the enclosing environment
+     */
+    public boolean needsEnvironment() {
+        return scope == null || !scope.isElided();
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -44,6 +73,10 @@ public class BlockStmt extends Statement {
 
     @Override
     protected void internalProcess(Environment env) {
+        if (env.getMemory().isBytecode()) {
+            VirtualMachine.run(this, env);
+            return;
+        }
         for (Line line : children) {
             line.evaluate(env);
         }
@@ -67,4 +100,11 @@ public class BlockStmt extends Statement {
         }
         return bs;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        for (Line line : children) {
+            line.resolve(resolver);
+        }
+    }
 }
@@ -25,7 +25,7 @@ public class ByteLiteral extends LiteralNode {
 
     @Override
     protected SplElement internalEval(Environment env) {
-        return new SplByte(b);
+        return SplByte.valueOf(b);
     }
 
     @Override
@@ -15,6 +15,7 @@ public class CaseStmt extends Statement {
     public final boolean isExpr;
     private final Line conditions;  // in 'default', it is null
     private final BinaryOperator[] binaryConditions;
+    private Expression switchExpr;  // nullable
 
     public CaseStmt(Line conditions, Node bodyBlock, boolean isExpr, LineFilePos lineFile) {
         super(lineFile);
@@ -42,7 +43,10 @@ public class CaseStmt extends Statement {
         Line cond = null;
         if (hasCond) cond = Reconstructor.reconstruct(is);
 
-        return new CaseStmt(cond, body, expr, lineFilePos);
+        CaseStmt caseStmt = new CaseStmt(cond, body, expr, lineFilePos);
+        Expression switchExpr = is.readOptional();
+        if (switchExpr != null) caseStmt.setSwitchExpr(switchExpr);
+        return caseStmt;
     }
 
     @Override
@@ -52,10 +56,12 @@ public class CaseStmt extends Statement {
         out.writeBoolean(conditions != null);
         if (conditions != null)
             conditions.save(out);
-        // do not save binary condition
+        // do not save binary condition, but the switch expression which is their left side
+        out.writeOptional(switchExpr);
     }
 
     public void setSwitchExpr(Expression switchExpr) {
+        this.switchExpr = switchExpr;
 //        binaryCondition.left = switchExpr;
         if (binaryConditions != null)
             for (BinaryOperator bo : binaryConditions) {
@@ -1,8 +1,11 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.parser.Resolver;
+import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
+import spl.util.Reconstructor;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -19,6 +22,12 @@ public class CatchStmt extends Statement {
         this.body = body;
     }
 
+    public static CatchStmt reconstruct(BytesIn is, LineFilePos lineFilePos) throws Exception {
+        Expression condition = Reconstructor.reconstruct(is);
+        BlockStmt body = Reconstructor.reconstruct(is);
+        return new CatchStmt(condition, body, lineFilePos);
+    }
+
     @Override
     protected void internalProcess(Environment env) {
         body.evaluate(env);
@@ -31,6 +40,15 @@ public class CatchStmt extends Statement {
 
     @Override
     protected void internalSave(BytesOut out) throws IOException {
+        condition.save(out);
+        body.save(out);
+    }
 
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.enterBlock(body, true);
+        if (condition instanceof AsExpr) resolver.declare(((AsExpr) condition).getRight().getName());
+        body.resolve(resolver);
+        resolver.exitBlock(body);
     }
 }
@@ -23,7 +23,7 @@ public class CharLiteral extends LiteralNode {
 
     @Override
     protected SplElement internalEval(Environment env) {
-        return new Char(ch);
+        return Char.valueOf(ch);
     }
 
     @Override
@@ -142,6 +142,7 @@ public class ClassStmt extends Expression {
 
         SplClass clazz = callingEnv.getMemory().get((Reference) clazzPtr);
         clazz.setChecker(iofPtr);
+        callingEnv.getMemory().recordWrite(clazz, iofPtr);
 
         return clazzPtr;
     }
@@ -4,6 +4,7 @@ import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.SplElement;
 import spl.lexer.SyntaxError;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.LineFilePos;
 import spl.util.Reconstructor;
@@ -46,4 +47,10 @@ public class ConditionalExpr extends BinaryExpr {
         be.setRight(right);
         return be;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        right.resolve(resolver);
+    }
 }
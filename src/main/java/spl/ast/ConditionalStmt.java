@@ -11,4 +11,8 @@ public abstract class ConditionalStmt extends Statement {
 
         this.bodyBlock = bodyBlock;
     }
+
+    public BlockStmt getBodyBlock() {
+        return bodyBlock;
+    }
 }
@@ -1,6 +1,7 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -27,4 +28,8 @@ public class ContinueStmt extends Statement {
     public static ContinueStmt reconstruct(BytesIn is, LineFilePos lineFilePos) throws Exception {
         return new ContinueStmt(lineFilePos);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+    }
 }
@@ -0,0 +1,92 @@
+package spl.ast;
+
+/**
+ * The parts of a counted for loop {@code for ...; i < bound; i++}, which can be run with a native counter.
+ * <p>
+ * The counter is compared with an int literal or another name by {@code <}, {@code <=}, {@code >} or {@code >=},
+ * and stepped by {@code ++}, {@code --}, {@code +=} or {@code -=} with a non-zero int literal. Whether the counter
+ * and the bound are actually ints is only known at runtime.
+ */
+final class CountedLoop {
+
+    private static final int LT = 0;
+    private static final int LE = 1;
+    private static final int GT = 2;
+    private static final int GE = 3;
+
+    final NameNode counter;
+    final Expression bound;
+    final long step;
+    private final int comparison;
+
+    private CountedLoop(NameNode counter, Expression bound, int comparison, long step) {
+        this.counter = counter;
+        this.bound = bound;
+        this.comparison = comparison;
+        this.step = step;
+    }
+
+    /**
+     * @param end  the condition of the loop
+     * @param step the step line of the loop
+     * @return the parts of the loop, or {@code null} if it is not a counted loop
+     */
+    static CountedLoop of(Expression end, Line step) {
+        if (!(end instanceof BinaryOperator) || step.size() != 1) return null;
+        BinaryOperator condition = (BinaryOperator) end;
+        if (!(condition.getLeft() instanceof NameNode)) return null;
+        NameNode counter = (NameNode) condition.getLeft();
+
+        int comparison = switch (condition.getOperator()) {
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            case ">=" -> GE;
+            default -> -1;
+        };
+        if (comparison < 0) return null;
+
+        Expression bound = condition.getRight();
+        if (!(bound instanceof IntLiteral ||
+                (bound instanceof NameNode && !((NameNode) bound).getName().equals(counter.getName()))))
+            return null;
+
+        Long stepValue = stepOf(step.get(0), counter.getName());
+        // a loop that never steps is left to the general loop
+        if (stepValue == null || stepValue == 0) return null;
+        return new CountedLoop(counter, bound, comparison, stepValue);
+    }
+
+    private static Long stepOf(Node stepNode, String counterName) {
+        if (stepNode instanceof IncDecOperator) {
+            IncDecOperator incDec = (IncDecOperator) stepNode;
+            if (isCounter(incDec.getValue(), counterName)) return incDec.isIncrement ? 1L : -1L;
+        } else if (stepNode instanceof BinaryOperatorAssignment) {
+            BinaryOperatorAssignment boa = (BinaryOperatorAssignment) stepNode;
+            if (isCounter(boa.getLeft(), counterName) && boa.getRight() instanceof IntLiteral) {
+                long value = ((IntLiteral) boa.getRight()).getValue();
+                if (boa.getOperator().equals("+=")) return value;
+                else if (boa.getOperator().equals("-=")) return -value;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCounter(Node node, String counterName) {
+        return node instanceof NameNode && ((NameNode) node).getName().equals(counterName);
+    }
+
+    /**
+     * @param counter the counter
+     * @param bound   the bound
+     * @return the result of the condition
+     */
+    boolean test(long counter, long bound) {
+        return switch (comparison) {
+            case LT -> counter < bound;
+            case LE -> counter <= bound;
+            case GT -> counter > bound;
+            default -> counter >= bound;
+        };
+    }
+}
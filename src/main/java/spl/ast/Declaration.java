@@ -5,6 +5,7 @@ import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.lexer.SyntaxError;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -88,4 +89,9 @@ public class Declaration extends Expression {
         result = 31 * result + level;
         return result;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.declare(declaredName);
+    }
 }
@@ -58,11 +58,13 @@ public class DictSetLiteral extends Expression {
         Reference putFnPtr = (Reference) iap.instance.getEnv().get(Constants.SET_ITEM_FN, lineFilePos);
         SplCallable putFn = env.getMemory().get(putFnPtr);
 
+        int rootsMark = env.getMemory().addTempPtr(iap.pointer);
         for (Map.Entry<String, SplElement> entry : map.entrySet()) {
             SplElement key = StringLiteral.createString(entry.getKey().toCharArray(), env, lineFilePos);
 
             putFn.call(EvaluatedArguments.of(iap.pointer, key, entry.getValue()), env, lineFilePos);
         }
+        env.getMemory().popTempRoots(rootsMark);
         return iap.pointer;
     }
 
@@ -84,14 +86,22 @@ public class DictSetLiteral extends Expression {
         Reference putFnPtr = (Reference) iap.instance.getEnv().get(Constants.SET_ITEM_FN, lineFile);
         SplCallable putFn = env.getMemory().get(putFnPtr);
 
-        for (Node node : nodes) {
-            Assignment ass = (Assignment) node;
-            SplElement left = ass.getLeft().evaluate(env);
-            if (left == Undefined.ERROR) return left;
-            SplElement right = ass.getRight().evaluate(env);
-            if (right == Undefined.ERROR) return right;
-
-            putFn.call(EvaluatedArguments.of(iap.pointer, left, right), env, lineFile);
+        int rootsMark = env.getMemory().addTempPtr(iap.pointer);
+        try {
+            for (Node node : nodes) {
+                Assignment ass = (Assignment) node;
+                SplElement left = ass.getLeft().evaluate(env);
+                if (left == Undefined.ERROR) return left;
+                int leftMark = env.getMemory().tempRootsMark();
+                if (left instanceof Reference) env.getMemory().addTempPtr((Reference) left);
+                SplElement right = ass.getRight().evaluate(env);
+                env.getMemory().popTempRoots(leftMark);
+                if (right == Undefined.ERROR) return right;
+
+                putFn.call(EvaluatedArguments.of(iap.pointer, left, right), env, lineFile);
+            }
+        } finally {
+            env.getMemory().popTempRoots(rootsMark);
         }
         return iap.pointer;
     }
@@ -103,12 +113,17 @@ public class DictSetLiteral extends Expression {
         Reference putFnPtr = (Reference) iap.instance.getEnv().get(Constants.PUT_FN, lineFile);
         SplCallable putFn = env.getMemory().get(putFnPtr);
 
-        for (Node node : nodes) {
-            SplElement value = node.evaluate(env);
-            // guaranteed not null, since 'Expression' check happened while creation
-            if (value == Undefined.ERROR) return Undefined.ERROR;
+        int rootsMark = env.getMemory().addTempPtr(iap.pointer);
+        try {
+            for (Node node : nodes) {
+                SplElement value = node.evaluate(env);
+                // guaranteed not null, since 'Expression' check happened while creation
+                if (value == Undefined.ERROR) return Undefined.ERROR;
 
-            putFn.call(EvaluatedArguments.of(iap.pointer, value), env, lineFile);
+                putFn.call(EvaluatedArguments.of(iap.pointer, value), env, lineFile);
+            }
+        } finally {
+            env.getMemory().popTempRoots(rootsMark);
         }
         return iap.pointer;
     }
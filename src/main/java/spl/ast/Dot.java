@@ -2,17 +2,26 @@ package spl.ast;
 
 import spl.interpreter.EvaluatedArguments;
 import spl.interpreter.env.Environment;
+import spl.interpreter.env.InstanceEnvironment;
+import spl.interpreter.env.VarEntry;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.*;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.Constants;
 import spl.util.LineFilePos;
 import spl.util.Reconstructor;
 
 public class Dot extends BinaryExpr {
+
+    /**
+     * Locations of the attribute named by the right side in the instances seen by this node, created on first use.
+     */
+    private AttributeCache attributeCache;
+
     public Dot(LineFilePos lineFile) {
         super(".", lineFile);
     }
@@ -27,17 +36,21 @@ public class Dot extends BinaryExpr {
         return be;
     }
 
-    private static SplElement crossEnvEval(Node right, Reference leftPtr,
-                                           Environment objEnv, Environment oldEnv, LineFilePos lineFile) {
+    private SplElement crossEnvEval(Node right, Reference leftPtr,
+                                    Environment objEnv, Environment oldEnv, LineFilePos lineFile) {
         if (right instanceof NameNode) {
-            return right.evaluate(objEnv);
+            return attribute((NameNode) right, objEnv);
         } else if (right instanceof FuncCall) {
-            SplElement funcTv = ((FuncCall) right).getCallObj().evaluate(objEnv);
+            Expression callObj = ((FuncCall) right).getCallObj();
+            SplElement funcTv = callObj instanceof NameNode ?
+                    attribute((NameNode) callObj, objEnv) : callObj.evaluate(objEnv);
             if (objEnv.hasException()) {
                 return Undefined.ERROR;
             }
             SplCallable callable = objEnv.getMemory().get((Reference) funcTv);
+            int rootsMark = oldEnv.getMemory().addTempPtr(leftPtr);
             EvaluatedArguments ea = ((FuncCall) right).getArguments().evalArgs(oldEnv);
+            oldEnv.getMemory().popTempRoots(rootsMark);
             if (callable instanceof SplMethod) {
                 ea.insertThis(leftPtr);  // add "this" ptr
             }
@@ -53,6 +66,23 @@ public class Dot extends BinaryExpr {
         }
     }
 
+    /**
+     * Evaluates an attribute name in the environment of an object, through the inline cache if the object is an
+     * instance.
+     *
+     * @param name   the attribute name
+     * @param objEnv the environment of the object
+     * @return the attribute value
+     */
+    private SplElement attribute(NameNode name, Environment objEnv) {
+        if (objEnv instanceof InstanceEnvironment) {
+            if (attributeCache == null) attributeCache = new AttributeCache(name.getName());
+            VarEntry entry = attributeCache.lookup((InstanceEnvironment) objEnv);
+            if (entry != null) return entry.getValue();
+        }
+        return name.evaluate(objEnv);
+    }
+
     @Override
     protected SplElement internalEval(Environment env) {
         SplElement leftTv = left.evaluate(env);
@@ -89,4 +119,14 @@ public class Dot extends BinaryExpr {
         }
     }
 
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        // only arguments are evaluated in the current environment, the rest are in the object's environment
+        if (right instanceof FuncCall) {
+            ((FuncCall) right).getArguments().resolve(resolver);
+        } else if (right instanceof IndexingNode) {
+            ((IndexingNode) right).getArgs().resolve(resolver);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -25,4 +26,8 @@ public class FallthroughStmt extends Statement {
     @Override
     protected void internalSave(BytesOut out) throws IOException {
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+    }
 }
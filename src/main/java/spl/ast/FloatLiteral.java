@@ -14,11 +14,16 @@ import java.io.OutputStream;
 public class FloatLiteral extends LiteralNode {
 
     public final double value;
+    /**
+     * The evaluation result, which is immutable and therefore shared by all evaluations.
+     */
+    private final SplFloat element;
 
     public FloatLiteral(double value, LineFilePos lineFile) {
         super(lineFile);
 
         this.value = value;
+        this.element = new SplFloat(value);
     }
 
     public double getValue() {
@@ -27,8 +32,7 @@ public class FloatLiteral extends LiteralNode {
 
     @Override
     protected SplElement internalEval(Environment env) {
-
-        return new SplFloat(value);
+        return element;
     }
 
     @Override
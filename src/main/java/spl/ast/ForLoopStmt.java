@@ -3,17 +3,22 @@ package spl.ast;
 import spl.interpreter.EvaluatedArguments;
 import spl.interpreter.env.BlockEnvironment;
 import spl.interpreter.env.Environment;
+import spl.interpreter.env.InstanceEnvironment;
 import spl.interpreter.env.LoopEnvironment;
+import spl.interpreter.env.VarEntry;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.Bool;
+import spl.interpreter.primitives.Int;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splErrors.RuntimeSyntaxError;
 import spl.interpreter.splObjects.Instance;
 import spl.interpreter.splObjects.SplArray;
+import spl.interpreter.splObjects.SplClass;
 import spl.interpreter.splObjects.SplMethod;
 import spl.interpreter.splObjects.SplObject;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -21,7 +26,21 @@ import java.io.IOException;
 public class ForLoopStmt extends ConditionalStmt {
 
     //    private final static String forEachSyntaxMsg = "Syntax of for-each loop: 'for i in collection {...}'";
+    // fields of the built-in range iterator
+    private static final String RANGE_CURRENT = "current";
+    private static final String RANGE_END = "end";
+    private static final String RANGE_STEP = "step";
+
     private final BlockStmt condition;
+    /**
+     * The parts of this loop if it is a counted loop, which is found in the first evaluation.
+     */
+    private CountedLoop countedLoop;
+    private boolean countedLoopChecked;
+    /**
+     * Whether the body has no lines other than empty lines, which is found with {@code countedLoop}.
+     */
+    private boolean emptyBody;
 
     public ForLoopStmt(BlockStmt condition, BlockStmt bodyBlock, LineFilePos lineFile) {
         super(bodyBlock, lineFile);
@@ -37,8 +56,10 @@ public class ForLoopStmt extends ConditionalStmt {
 
     @Override
     protected void internalProcess(Environment env) {
-        LoopEnvironment titleEnv = new LoopEnvironment(env);
-        BlockEnvironment bodyEnv = new BlockEnvironment(titleEnv);
+        LoopEnvironment titleEnv = new LoopEnvironment(env, condition.getScope());
+        // a body that declares nothing is evaluated in the title environment
+        Environment bodyEnv = bodyBlock.needsEnvironment() ?
+                new BlockEnvironment(titleEnv, bodyBlock.getScope()) : titleEnv;
 
 
         if (condition.getLines().size() == 1) {
@@ -74,13 +95,21 @@ public class ForLoopStmt extends ConditionalStmt {
     }
 
     private void forLoop3Parts(Line init, Expression end, Line step, Environment parentEnv,
-                               LoopEnvironment titleEnv, BlockEnvironment bodyEnv) {
+                               LoopEnvironment titleEnv, Environment bodyEnv) {
         init.evaluate(titleEnv);
+        if (!countedLoopChecked) {
+            countedLoop = CountedLoop.of(end, step);
+            emptyBody = bodyBlock.getLines().stream().allMatch(line -> line.size() == 0);
+            countedLoopChecked = true;
+        }
+        if (countedLoop != null && countedLoop(step, parentEnv, titleEnv, bodyEnv)) return;
+
         Bool bool = Bool.evalBoolean(end, titleEnv, lineFile);
         while (bool.value) {
-            bodyEnv.invalidate();
+            if (bodyEnv != titleEnv) bodyEnv.invalidate();
             bodyBlock.evaluate(bodyEnv);
-            if (titleEnv.isBroken() || parentEnv.interrupted()) break;
+            // the condition may be a literal, which does not check for exceptions
+            if (titleEnv.isBroken() || parentEnv.interrupted() || titleEnv.pollInterrupt()) break;
 
             titleEnv.resumeLoop();
             step.evaluate(titleEnv);
@@ -88,10 +117,62 @@ public class ForLoopStmt extends ConditionalStmt {
         }
     }
 
+    /**
+     * Runs a counted loop with a native counter, until the loop ends or the counter or the bound is not an int.
+     * <p>
+     * The counter is stored before each evaluation of the body and read back after it, so that the body can read
+     * and assign it. An empty body cannot observe the counter, which is then stored only once the loop ends.
+     *
+     * @return {@code true} if the loop has ended, {@code false} if it continues as a regular loop from the test of its
+     * condition
+     */
+    private boolean countedLoop(Line step, Environment parentEnv, LoopEnvironment titleEnv, Environment bodyEnv) {
+        CountedLoop loop = countedLoop;
+        SplElement counterEle = loop.counter.evaluate(titleEnv);
+        if (!(counterEle instanceof Int)) return false;
+
+        long counter = ((Int) counterEle).value;
+        boolean observed = !emptyBody;
+        boolean stepped = false;
+        boolean ended = true;
+        SplElement boundEle = null;
+        while (true) {
+            // an empty body cannot change the bound
+            if (observed || boundEle == null) boundEle = loop.bound.evaluate(titleEnv);
+            if (!(boundEle instanceof Int)) {
+                ended = false;
+                break;
+            }
+            if (!loop.test(counter, ((Int) boundEle).value)) break;
+
+            if (observed) {
+                if (bodyEnv != titleEnv) bodyEnv.invalidate();
+                bodyBlock.evaluate(bodyEnv);
+                if (titleEnv.isBroken() || parentEnv.interrupted()) return true;
+
+                titleEnv.resumeLoop();
+                counterEle = loop.counter.evaluate(titleEnv);
+                if (!(counterEle instanceof Int)) {
+                    step.evaluate(titleEnv);
+                    return false;
+                }
+                counter = ((Int) counterEle).value + loop.step;
+                loop.counter.assign(Int.valueOf(counter), titleEnv, lineFile);
+                if (titleEnv.pollInterrupt()) return true;
+            } else {
+                counter += loop.step;
+                stepped = true;
+                if (titleEnv.pollInterrupt()) break;
+            }
+        }
+        if (stepped) loop.counter.assign(Int.valueOf(counter), titleEnv, lineFile);
+        return ended;
+    }
+
     private void forEachLoop(InExpr inExpr,
                              Environment parentEnv,
                              LoopEnvironment titleEnv,
-                             BlockEnvironment bodyEnv) {
+                             Environment bodyEnv) {
         SplElement probIterable = inExpr.right.evaluate(parentEnv);
 
         Declaration loopInvariant;
@@ -149,7 +230,7 @@ public class ForLoopStmt extends ConditionalStmt {
                                      Instance iterator,
                                      Environment parentEnv,
                                      LoopEnvironment titleEnv,
-                                     BlockEnvironment bodyEnv) {
+                                     Environment bodyEnv) {
         if (iterator == null) {
             SplInvokes.throwException(
                     parentEnv,
@@ -167,11 +248,17 @@ public class ForLoopStmt extends ConditionalStmt {
         String liName = loopInvariant.declaredName;
         loopInvariant.evaluate(titleEnv);  // declare loop invariant
 
+        // the iterator is not stored in any environment
+        int rootsMark = titleEnv.getMemory().addTempPtr(instancePtr);
+
+        if (isRangeIterator(iterator, parentEnv) && rangeLoop(liName, iterator, parentEnv, titleEnv, bodyEnv)) {
+            titleEnv.getMemory().popTempRoots(rootsMark);
+            return;
+        }
+
         SplElement hasNext = hasNextFn.call(EvaluatedArguments.of(instancePtr), titleEnv, lineFile);
-        if (titleEnv.hasException()) return;
-        Bool bool = (Bool) hasNext;
-        while (bool.value) {
-            bodyEnv.invalidate();
+        while (!titleEnv.pollInterrupt() && ((Bool) hasNext).value) {
+            if (bodyEnv != titleEnv) bodyEnv.invalidate();
             SplElement nextVal = nextFn.call(EvaluatedArguments.of(instancePtr), bodyEnv, lineFile);
             titleEnv.setVar(liName, nextVal, lineFile);
 
@@ -181,9 +268,57 @@ public class ForLoopStmt extends ConditionalStmt {
             titleEnv.resumeLoop();
 
             hasNext = hasNextFn.call(EvaluatedArguments.of(instancePtr), titleEnv, lineFile);
-            if (titleEnv.hasException()) return;
-            bool = (Bool) hasNext;
         }
+
+        titleEnv.getMemory().popTempRoots(rootsMark);
+    }
+
+    /**
+     * @return {@code true} if the class of {@code iterator} is exactly the built-in range iterator, whose methods are
+     * known
+     */
+    private static boolean isRangeIterator(Instance iterator, Environment env) {
+        SplClass clazz = env.getMemory().get(iterator.getClazzPtr());
+        return clazz.classId == env.globalEnv.getRangeIteratorClassId();
+    }
+
+    /**
+     * Runs a loop over a range iterator, with the {@code __hasNext__} and {@code __next__} methods of the range
+     * iterator evaluated natively on its fields, until the loop ends or a field is not an int.
+     *
+     * @return {@code true} if the loop has ended, {@code false} if it continues as a regular loop from the
+     * {@code __hasNext__} call
+     */
+    private boolean rangeLoop(String liName,
+                              Instance iterator,
+                              Environment parentEnv,
+                              LoopEnvironment titleEnv,
+                              Environment bodyEnv) {
+        InstanceEnvironment iteratorEnv = iterator.getEnv();
+        VarEntry current = iteratorEnv.getEntry(RANGE_CURRENT);
+        VarEntry end = iteratorEnv.getEntry(RANGE_END);
+        VarEntry step = iteratorEnv.getEntry(RANGE_STEP);
+        if (current == null || end == null || step == null ||
+                !(end.getValue() instanceof Int) || !(step.getValue() instanceof Int)) return false;
+
+        long endValue = ((Int) end.getValue()).value;
+        long stepValue = ((Int) step.getValue()).value;
+        while (!titleEnv.pollInterrupt()) {
+            SplElement currentEle = current.getValue();
+            if (!(currentEle instanceof Int)) return false;
+            long value = ((Int) currentEle).value;
+            if (stepValue >= 0 ? value >= endValue : value <= endValue) return true;
+
+            if (bodyEnv != titleEnv) bodyEnv.invalidate();
+            current.setValue(Int.valueOf(value + stepValue));
+            titleEnv.setVar(liName, currentEle, lineFile);
+
+            bodyBlock.evaluate(bodyEnv);
+            if (titleEnv.isBroken() || parentEnv.interrupted()) return true;
+
+            titleEnv.resumeLoop();
+        }
+        return true;
     }
 
     @Override
@@ -196,4 +331,27 @@ public class ForLoopStmt extends ConditionalStmt {
         condition.save(out);
         bodyBlock.save(out);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        Node first = condition.getLines().size() == 1 ? condition.getLines().get(0).get(0) : null;
+        if (first instanceof InExpr) {
+            // the iterable is evaluated outside the loop
+            InExpr inExpr = (InExpr) first;
+            inExpr.right.resolve(resolver);
+            resolver.enterBlock(condition, false);
+            if (inExpr.left instanceof Declaration) {
+                resolver.declare(((Declaration) inExpr.left).declaredName);
+            } else if (inExpr.left instanceof NameNode) {
+                resolver.declare(((NameNode) inExpr.left).getName());
+            }
+        } else {
+            resolver.enterBlock(condition, false);
+            condition.resolve(resolver);
+        }
+        resolver.enterBlock(bodyBlock, true);
+        bodyBlock.resolve(resolver);
+        resolver.exitBlock(bodyBlock);
+        resolver.exitBlock(condition);
+    }
 }
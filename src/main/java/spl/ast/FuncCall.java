@@ -10,6 +10,7 @@ import spl.interpreter.splObjects.SplCallable;
 import spl.interpreter.splObjects.SplMethod;
 import spl.interpreter.splObjects.SplObject;
 import spl.interpreter.splObjects.UserFunction;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -118,4 +119,10 @@ public class FuncCall extends Expression {
     public void setCallObj(Expression callObj) {
         this.callObj = callObj;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        callObj.resolve(resolver);
+        arguments.resolve(resolver);
+    }
 }
@@ -7,6 +7,8 @@ import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.Function;
 import spl.interpreter.splObjects.SplCallable;
 import spl.interpreter.splObjects.SplMethod;
+import spl.interpreter.env.Scope;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -92,7 +94,9 @@ public class FuncDefinition extends Expression {
         if (annotationArrRef == null) return Undefined.ERROR;
 
         Function function = new Function(body, params, env, name.getName(), docRef, annotationArrRef, getLineFile());
+        int rootsMark = env.getMemory().addTempPtr(annotationArrRef);
         Reference funcPtr = env.getMemory().allocateFunction(function, env);
+        env.getMemory().popTempRoots(rootsMark);
 
         if (isConst) {
             env.defineConstFunction(name.getName(), funcPtr, getLineFile());
@@ -114,7 +118,10 @@ public class FuncDefinition extends Expression {
         SplMethod function = new SplMethod(body, params, classDefEnv, name.getName(), docRef, annotationArrRef,
                 defClassId, getLineFile());
 
-        return classDefEnv.getMemory().allocateFunction(function, classDefEnv);
+        int rootsMark = classDefEnv.getMemory().addTempPtr(annotationArrRef);
+        Reference methodPtr = classDefEnv.getMemory().allocateFunction(function, classDefEnv);
+        classDefEnv.getMemory().popTempRoots(rootsMark);
+        return methodPtr;
     }
 
     @Override
@@ -147,4 +154,14 @@ public class FuncDefinition extends Expression {
     public boolean isConst() {
         return isConst;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.declare(name.getName());
+        Scope definitionScope = resolver.getCurrent();
+        resolver.enterBlock(body, false);
+        resolver.declareParams(parameters, definitionScope);
+        body.resolve(resolver);
+        resolver.exitBlock(body);
+    }
 }
@@ -3,6 +3,7 @@ package spl.ast;
 import spl.interpreter.env.BlockEnvironment;
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.Bool;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -36,16 +37,32 @@ public class IfStmt extends ConditionalStmt {
         this.elseBlock = elseBlock;
     }
 
+    public Expression getCondition() {
+        return condition;
+    }
+
+    /**
+     * @return the else block, or {@code null} if this statement has none
+     */
+    public BlockStmt getElseBlock() {
+        return elseBlock;
+    }
+
     @Override
     protected void internalProcess(Environment env) {
         Bool bool = Bool.evalBoolean(condition, env, getLineFile());
-        BlockEnvironment blockEnvironment;
         if (bool.booleanValue()) {
-            blockEnvironment = new BlockEnvironment(env);
-            bodyBlock.evaluate(blockEnvironment);
+            evalBlock(bodyBlock, env);
         } else if (elseBlock != null) {
-            blockEnvironment = new BlockEnvironment(env);
-            elseBlock.evaluate(blockEnvironment);
+            evalBlock(elseBlock, env);
+        }
+    }
+
+    private static void evalBlock(BlockStmt block, Environment env) {
+        if (block.needsEnvironment()) {
+            block.evaluate(new BlockEnvironment(env, block.getScope()));
+        } else {
+            block.evaluate(env);
         }
     }
 
@@ -63,4 +80,17 @@ public class IfStmt extends ConditionalStmt {
             elseBlock.save(out);
         }
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        condition.resolve(resolver);
+        resolver.enterBlock(bodyBlock, true);
+        bodyBlock.resolve(resolver);
+        resolver.exitBlock(bodyBlock);
+        if (elseBlock != null) {
+            resolver.enterBlock(elseBlock, true);
+            elseBlock.resolve(resolver);
+            resolver.exitBlock(elseBlock);
+        }
+    }
 }
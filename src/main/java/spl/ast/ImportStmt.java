@@ -3,6 +3,7 @@ package spl.ast;
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.splErrors.NativeError;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -57,4 +58,9 @@ public class ImportStmt extends Statement {
     public String getImportName() {
         return importName;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.declare(importName);
+    }
 }
@@ -5,6 +5,7 @@ import spl.interpreter.primitives.Int;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.SplFloat;
 import spl.interpreter.splErrors.NativeError;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -26,6 +27,10 @@ public class IncDecOperator extends Expression implements Buildable {
     private boolean isPost;
 
     private Node value;
+    /**
+     * Types of values seen by this node, one of the states in {@code Specialization}.
+     */
+    private int state = Specialization.UNINITIALIZED;
 
     public IncDecOperator(boolean isIncrement, LineFilePos lineFile) {
         super(lineFile);
@@ -51,16 +56,48 @@ public class IncDecOperator extends Expression implements Buildable {
         this.value = value;
     }
 
+    public Node getValue() {
+        return value;
+    }
+
+    public boolean isPost() {
+        return isPost;
+    }
+
     @Override
     protected SplElement internalEval(Environment env) {
         SplElement current = value.evaluate(env);
+        SplElement result = stepped(current, env);
+
+        Assignment.assignment(value, result, env, getLineFile());
+        if (isPost) {
+            return current;
+        } else {
+            return result;
+        }
+    }
+
+    /**
+     * @param current the current value of the operand
+     * @param env     the environment
+     * @return the value to be assigned to the operand
+     */
+    public SplElement stepped(SplElement current, Environment env) {
+        if (state == Specialization.UNINITIALIZED) state = Specialization.of(current);
         SplElement result = null;
-        if (SplElement.isPrimitive(current)) {
+        if (state == Specialization.INT && current instanceof Int) {
+            long v = ((Int) current).value;
+            result = Int.valueOf(isIncrement ? v + 1 : v - 1);
+        } else if (state == Specialization.FLOAT && current instanceof SplFloat) {
+            double v = ((SplFloat) current).value;
+            result = new SplFloat(isIncrement ? v + 1 : v - 1);
+        } else if (SplElement.isPrimitive(current)) {
+            state = Specialization.GENERIC;
             if (current.isIntLike()) {
                 if (isIncrement) {
-                    result = new Int(current.intValue() + 1);
+                    result = Int.valueOf(current.intValue() + 1);
                 } else {
-                    result = new Int(current.intValue() - 1);
+                    result = Int.valueOf(current.intValue() - 1);
                 }
             } else if (current instanceof SplFloat) {
                 if (isIncrement) {
@@ -75,13 +112,7 @@ public class IncDecOperator extends Expression implements Buildable {
                     Utilities.typeName(current, env, lineFile) + ". ",
                     getLineFile());
         }
-
-        Assignment.assignment(value, result, env, getLineFile());
-        if (isPost) {
-            return current;
-        } else {
-            return result;
-        }
+        return result;
     }
 
     @Override
@@ -109,4 +140,9 @@ public class IncDecOperator extends Expression implements Buildable {
         out.writeBoolean(isIncrement);
         out.writeBoolean(isPost);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
@@ -12,6 +12,7 @@ import spl.interpreter.splObjects.SplArray;
 import spl.interpreter.splObjects.SplMethod;
 import spl.interpreter.splObjects.SplObject;
 import spl.lexer.SyntaxError;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -22,6 +23,12 @@ public class IndexingNode extends Expression {
     private final Expression callObj;
     private final Line args;
     private DictSetLiteral initialValue;
+    /**
+     * Types of indices seen by this node, one of the states in {@code Specialization}.
+     * <p>
+     * The {@code INT} state means that this node has only indexed arrays by int.
+     */
+    private int state = Specialization.UNINITIALIZED;
 
     public IndexingNode(Expression callObj, Line args, LineFilePos lineFile) {
         super(lineFile);
@@ -34,7 +41,8 @@ public class IndexingNode extends Expression {
         Expression callObj = Reconstructor.reconstruct(in);
         Line args = Reconstructor.reconstruct(in);
         var node = new IndexingNode(callObj, args, lineFilePos);
-        node.setInitialValue(in.readOptional());
+        DictSetLiteral initialValue = in.readOptional();
+        if (initialValue != null) node.setInitialValue(initialValue);
         return node;
     }
 
@@ -80,7 +88,21 @@ public class IndexingNode extends Expression {
                     "Index can only have one part.",
                     lineFile);
 
+        int rootsMark = callEnv.getMemory().tempRootsMark();
+        if (callRes instanceof Reference) callEnv.getMemory().addTempPtr((Reference) callRes);
         SplElement indexEle = arguments.get(0).evaluate(callEnv);
+        callEnv.getMemory().popTempRoots(rootsMark);
+        if (callEnv.hasException()) return Undefined.ERROR;
+
+        if (state == Specialization.UNINITIALIZED) state = Specialization.of(indexEle);
+        if (state == Specialization.INT) {
+            if (indexEle instanceof Int && callRes instanceof Reference) {
+                Reference objPtr = (Reference) callRes;
+                if (callEnv.getMemory().get(objPtr) instanceof SplArray)
+                    return SplArray.getItemAtIndex(objPtr, (int) ((Int) indexEle).value, callEnv, lineFile);
+            }
+            state = Specialization.GENERIC;
+        }
         if (indexEle.isIntLike()) {
             int index = (int) indexEle.intValue();
 
@@ -95,7 +117,7 @@ public class IndexingNode extends Expression {
                 if (getItemFnEle == Undefined.ERROR) return getItemFnEle;
                 SplMethod getItemFn =
                         callEnv.getMemory().get((Reference) getItemFnEle);
-                return getItemFn.call(EvaluatedArguments.of(objPtr, new Int(index)), callEnv, lineFile);
+                return getItemFn.call(EvaluatedArguments.of(objPtr, Int.valueOf(index)), callEnv, lineFile);
             } else {
                 return SplInvokes.throwExceptionWithError(
                         callEnv,
@@ -132,4 +154,11 @@ public class IndexingNode extends Expression {
     public String toString() {
         return callObj + " " + args + (initialValue == null ? null : initialValue);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        callObj.resolve(resolver);
+        args.resolve(resolver);
+        if (initialValue != null) initialValue.resolve(resolver);
+    }
 }
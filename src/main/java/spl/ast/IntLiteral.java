@@ -14,16 +14,21 @@ import java.io.OutputStream;
 
 public class IntLiteral extends LiteralNode {
     private final long value;
+    /**
+     * The evaluation result, which is immutable and therefore shared by all evaluations.
+     */
+    private final Int element;
 
     public IntLiteral(long value, LineFilePos lineFile) {
         super(lineFile);
 
         this.value = value;
+        this.element = Int.valueOf(value);
     }
 
     @Override
     protected SplElement internalEval(Environment env) {
-        return new Int(value);
+        return element;
     }
 
     @Override
@@ -6,6 +6,8 @@ import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.Function;
 import spl.interpreter.splObjects.LambdaExpression;
 import spl.interpreter.splObjects.SplCallable;
+import spl.interpreter.env.Scope;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -17,6 +19,7 @@ public class LambdaExpressionDef extends Expression {
 
     private final Line parameters;
     private final Expression body;
+    private Scope scope;  // layout of the function environment, nullable
 
     public LambdaExpressionDef(Line parameters, Expression body, LineFilePos lineFile) {
         super(lineFile);
@@ -41,7 +44,7 @@ public class LambdaExpressionDef extends Expression {
         Function.Parameter[] params = SplCallable.evalParams(parameters, env);
         if (env.hasException()) return Undefined.ERROR;
 
-        LambdaExpression lambdaExpression = new LambdaExpression(body, params, env, getLineFile());
+        LambdaExpression lambdaExpression = new LambdaExpression(body, params, env, scope, getLineFile());
 
         return env.getMemory().allocateFunction(lambdaExpression, env);
     }
@@ -51,4 +54,13 @@ public class LambdaExpressionDef extends Expression {
         parameters.save(out);
         body.save(out);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        Scope definitionScope = resolver.getCurrent();
+        scope = resolver.enterScope(scope, false);
+        resolver.declareParams(parameters, definitionScope);
+        body.resolve(resolver);
+        resolver.exitScope(scope);
+    }
 }
@@ -2,6 +2,7 @@ package spl.ast;
 
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -56,6 +57,16 @@ public class Line extends Expression {
         return children.toString();
     }
 
+    /**
+     * Evaluates without checking the state of {@code env} if this line is not empty, since each child checks it and
+     * returns what this line would return.
+     */
+    @Override
+    public SplElement evaluate(Environment env) {
+        if (children.isEmpty()) return super.evaluate(env);
+        return internalEval(env);
+    }
+
     @Override
     protected SplElement internalEval(Environment env) {
 
@@ -84,4 +95,11 @@ public class Line extends Expression {
         }
         return line;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        for (Node node : children) {
+            node.resolve(resolver);
+        }
+    }
 }
@@ -1,9 +1,25 @@
 package spl.ast;
 
+import spl.interpreter.env.Environment;
+import spl.interpreter.primitives.SplElement;
+import spl.parser.Resolver;
 import spl.util.LineFilePos;
 
 public abstract class LiteralNode extends Expression {
     public LiteralNode(LineFilePos lineFile) {
         super(lineFile);
     }
+
+    /**
+     * Evaluates without checking the state of {@code env}, since evaluating a literal has no effect. String literals
+     * check the state only when the string object is created.
+     */
+    @Override
+    public SplElement evaluate(Environment env) {
+        return internalEval(env);
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+    }
 }
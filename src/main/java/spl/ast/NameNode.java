@@ -1,7 +1,10 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.interpreter.env.Scope;
+import spl.interpreter.env.VarEntry;
 import spl.interpreter.primitives.SplElement;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -13,6 +16,19 @@ import java.io.OutputStream;
 
 public class NameNode extends Expression {
     private final String name;
+    /**
+     * The coordinate computed by {@code Resolver}.
+     * <p>
+     * {@code depth} is {@code -1} if this name is not resolved. {@code slot} is {@code -1} if this name is not
+     * declared in any enclosing scope, in which case {@code depth} is the number of scopes to the top level.
+     */
+    private Scope scope;
+    private int depth = -1;
+    private int slot = -1;
+    /**
+     * The last result of looking up this name in a top level environment.
+     */
+    private GlobalCell cell;
 
     public NameNode(String name, LineFilePos lineFile) {
         super(lineFile);
@@ -28,11 +44,64 @@ public class NameNode extends Expression {
         return "Name(" + name + ")";
     }
 
+    public void bind(Scope scope, int depth, int slot) {
+        this.scope = scope;
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.resolveName(this);
+    }
+
     @Override
     protected SplElement internalEval(Environment env) {
+        return lookup(env);
+    }
+
+    /**
+     * Returns the value of this name, without checking the state of {@code env}.
+     *
+     * @param env the environment where this name is used
+     * @return the value, or {@code Undefined.ERROR} if the name is not found
+     */
+    public SplElement lookup(Environment env) {
+        VarEntry entry = resolvedEntry(env);
+        if (entry != null) return entry.getValue();
         return env.get(name, getLineFile());
     }
 
+    /**
+     * Returns the entry of this name by its coordinate, or {@code null} if it must be looked up by name.
+     */
+    private VarEntry resolvedEntry(Environment env) {
+        if (depth < 0) return null;
+        if (slot >= 0) return env.slotEntry(name, scope, depth, slot);
+
+        Environment topLevel = env.topLevelEnv(name, scope, depth);
+        if (topLevel == null) return null;
+        GlobalCell c = cell;
+        if (c != null && c.env == topLevel && c.version == Environment.namesVersion()) return c.entry;
+        int version = Environment.namesVersion();
+        VarEntry entry = topLevel.getEntry(name);
+        if (entry != null) cell = new GlobalCell(topLevel, version, entry);
+        return entry;
+    }
+
+    /**
+     * Assigns a value to this name.
+     *
+     * @param value    the value
+     * @param env      the environment where this assignment happens
+     * @param lineFile the line file of the assignment
+     */
+    public void assign(SplElement value, Environment env, LineFilePos lineFile) {
+        VarEntry entry = resolvedEntry(env);
+        if (entry != null) env.setEntry(name, entry, value, lineFile);
+        else env.setVar(name, value, lineFile);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof NameNode && ((NameNode) obj).name.equals(name);
@@ -46,4 +115,16 @@ public class NameNode extends Expression {
     public static NameNode reconstruct(BytesIn is, LineFilePos lineFilePos) throws Exception {
         return new NameNode(is.readString(), lineFilePos);
     }
+
+    private static class GlobalCell {
+        private final Environment env;
+        private final int version;
+        private final VarEntry entry;
+
+        private GlobalCell(Environment env, int version, VarEntry entry) {
+            this.env = env;
+            this.version = version;
+            this.entry = entry;
+        }
+    }
 }
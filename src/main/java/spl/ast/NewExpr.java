@@ -11,6 +11,7 @@ import spl.interpreter.splErrors.NativeError;
 import spl.interpreter.splObjects.Instance;
 import spl.interpreter.splObjects.SplArray;
 import spl.interpreter.splObjects.SplModule;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -113,19 +114,19 @@ public class NewExpr extends UnaryExpr {
             SplElement arrPtr = SplArray.createArray(node.getCallObj(), (int) length.value, callEnv, lineFile);
             if (arrPtr == Undefined.ERROR) return Undefined.ERROR;
             Reference arrPtrReal = (Reference) arrPtr;
-            callEnv.getMemory().addTempPtr(arrPtrReal);
+            int rootsMark = callEnv.getMemory().addTempPtr(arrPtrReal);
             if (node.getInitialValue() != null) {
                 DictSetLiteral initV = node.getInitialValue();
                 for (int i = 0; i < initV.getNodes().size(); i++) {
                     SplElement val = initV.getNodes().get(i).evaluate(callEnv);
                     if (val == Undefined.ERROR) {
-                        callEnv.getMemory().removeTempPtr(arrPtrReal);
+                        callEnv.getMemory().popTempRoots(rootsMark);
                         return Undefined.ERROR;
                     }
                     SplArray.setItemAtIndex(arrPtrReal, i, val, callEnv, lineFile);
                 }
             }
-            callEnv.getMemory().removeTempPtr(arrPtrReal);
+            callEnv.getMemory().popTempRoots(rootsMark);
 
             return arrPtrReal;
         } else {
@@ -142,4 +143,10 @@ public class NewExpr extends UnaryExpr {
     protected SplElement internalEval(Environment env) {
         return directInitClass(value, env, env, getLineFile());
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        if (value instanceof FuncCall || value instanceof Dot) value.resolve(resolver);
+        else resolver.markDynamic();
+    }
 }
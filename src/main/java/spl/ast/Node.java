@@ -4,6 +4,7 @@ import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
+import spl.parser.Resolver;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
 
@@ -17,7 +18,18 @@ public abstract class Node {
         this.lineFile = lineFile;
     }
 
-    public final SplElement evaluate(Environment env) {
+    /**
+     * Evaluates this node in {@code env}.
+     * <p>
+     * If {@code env} is interrupted or has an exception, the node is not evaluated. Nodes may override this method to
+     * skip these checks only if the result would not differ, for example nodes that evaluate children whose own
+     * checks return the same values, or nodes whose evaluation has no effect. Parents evaluating more than one child
+     * therefore check {@code env.hasException()} themselves before using the results.
+     *
+     * @param env the environment
+     * @return the evaluation result
+     */
+    public SplElement evaluate(Environment env) {
         // pre
         if (env.interrupted()) return Reference.NULL;
         if (env.hasException()) return Undefined.ERROR;
@@ -33,6 +45,18 @@ public abstract class Node {
 
     protected abstract SplElement internalEval(Environment env);
 
+    /**
+     * Walks this node in {@code Resolver}.
+     * <p>
+     * Nodes not overriding this method are not walked into, names inside them are looked up by name at runtime, and
+     * the enclosing block always gets its own environment.
+     *
+     * @param resolver the resolver
+     */
+    public void resolve(Resolver resolver) {
+        resolver.markDynamic();
+    }
+
     public final void save(BytesOut out) throws IOException {
         out.writeString(getClass().getName());
         lineFile.save(out);
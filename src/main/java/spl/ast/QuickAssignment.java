@@ -3,6 +3,7 @@ package spl.ast;
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
 import spl.lexer.SyntaxError;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.LineFilePos;
 import spl.util.Reconstructor;
@@ -33,4 +34,10 @@ public class QuickAssignment extends BinaryExpr {
         be.setRight(right);
         return be;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        right.resolve(resolver);
+        if (left instanceof NameNode) resolver.declare(((NameNode) left).getName());
+    }
 }
@@ -6,6 +6,7 @@ import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.Int;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.SplFloat;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -44,7 +45,7 @@ public class RegularUnaryOperator extends UnaryExpr {
         if (type == NUMERIC) {
             if (valueTv.isIntLike()) {
                 if (operator.equals("neg")) {
-                    return new Int(-valueTv.intValue());
+                    return Int.valueOf(-valueTv.intValue());
                 }
             } else if (valueTv instanceof SplFloat) {
                 if (operator.equals("neg")) {
@@ -64,4 +65,9 @@ public class RegularUnaryOperator extends UnaryExpr {
                 "Operator error ",
                 lineFile);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
@@ -1,6 +1,7 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -33,4 +34,9 @@ public class ReturnStmt extends UnaryStmt {
     protected void internalSave(BytesOut out) throws IOException {
         value.save(out);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        if (value != null) value.resolve(resolver);
+    }
 }
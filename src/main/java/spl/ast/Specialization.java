@@ -0,0 +1,42 @@
+package spl.ast;
+
+import spl.interpreter.primitives.Int;
+import spl.interpreter.primitives.SplElement;
+import spl.interpreter.primitives.SplFloat;
+
+/**
+ * States of nodes which specialize themselves to the operand types they have seen.
+ * <p>
+ * A node starts {@code UNINITIALIZED} and specializes on its first evaluation. Once it sees an operand of another
+ * type, it falls back to {@code GENERIC} and never specializes again, so that a node cannot flip between states.
+ */
+final class Specialization {
+
+    static final int UNINITIALIZED = 0;
+    static final int INT = 1;
+    static final int FLOAT = 2;
+    static final int GENERIC = 3;
+
+    private Specialization() {
+    }
+
+    /**
+     * @param value the operand
+     * @return the specialized state for {@code value}
+     */
+    static int of(SplElement value) {
+        if (value instanceof Int) return INT;
+        else if (value instanceof SplFloat) return FLOAT;
+        else return GENERIC;
+    }
+
+    /**
+     * @param left  the left operand
+     * @param right the right operand
+     * @return the specialized state for both operands, which is {@code GENERIC} if their types differ
+     */
+    static int of(SplElement left, SplElement right) {
+        int state = of(left);
+        return state == of(right) ? state : GENERIC;
+    }
+}
@@ -2,6 +2,7 @@ package spl.ast;
 
 import spl.interpreter.env.Environment;
 import spl.interpreter.primitives.SplElement;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -36,4 +37,9 @@ public class StarExpr extends UnaryExpr {
     protected SplElement internalEval(Environment env) {
         return null;
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
@@ -2,9 +2,9 @@ package spl.ast;
 
 import spl.interpreter.EvaluatedArguments;
 import spl.interpreter.env.Environment;
-import spl.interpreter.primitives.Char;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
+import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splErrors.NativeError;
 import spl.interpreter.splObjects.Instance;
 import spl.interpreter.splObjects.SplArray;
@@ -29,29 +29,18 @@ public class StringLiteral extends LiteralNode {
     public static Reference createString(char[] charArray, Environment env, LineFilePos lineFile) {
         // create spl char array
         Reference arrPtr = createCharArrayAndAllocate(charArray, env, lineFile);
-        env.getMemory().addTempPtr(arrPtr);
+        int rootsMark = env.getMemory().addTempPtr(arrPtr);
 
         // create String instance
         Reference strTv = createStringInstance(arrPtr, env, lineFile);
 
-        env.getMemory().removeTempPtr(arrPtr);
+        env.getMemory().popTempRoots(rootsMark);
 
         return strTv;
     }
 
     private static Reference createCharArrayAndAllocate(char[] charArray, Environment env, LineFilePos lineFile) {
-        Reference arrPtr = SplArray.createArray(SplElement.CHAR, charArray.length, env);
-        for (int i = 0; i < charArray.length; ++i) {
-            Char c = new Char(charArray[i]);
-            SplArray.setItemAtIndex(
-                    arrPtr,
-                    i,
-                    c,
-                    env,
-                    lineFile
-            );
-        }
-        return arrPtr;
+        return SplArray.fromJavaArray(charArray, env, lineFile);
     }
 
     private static Reference createStringInstance(Reference arrPtr, Environment env, LineFilePos lineFile) {
@@ -77,8 +66,12 @@ public class StringLiteral extends LiteralNode {
         return charArray.length;
     }
 
-    Reference evalRef(Environment env, LineFilePos lineFilePos) {
+    SplElement evalRef(Environment env, LineFilePos lineFilePos) {
         if (litRef == null) {
+            // the string object is created in the first evaluation, which is skipped like other nodes
+            if (env.interrupted()) return Reference.NULL;
+            if (env.hasException()) return Undefined.ERROR;
+
             litRef = createString(charArray, env, lineFilePos);
             env.getMemory().addPermanentPtr(litRef);
         }
@@ -7,6 +7,7 @@ import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.Instance;
+import spl.parser.Resolver;
 import spl.util.*;
 
 import java.io.IOException;
@@ -52,7 +53,9 @@ public class ThrowExpr extends UnaryExpr {
             // if exception is thrown before 'createString' spl string, spl.interpreter would be stopped.
             // if traceMsg is generated after 'createString' call, stack trace would be changed.
             String traceMsg = makeTraceMsg(env, lineFile);
+            int rootsMark = env.getMemory().addTempPtr(exceptionClassPtr);
             Reference tracePtr = StringLiteral.createString(traceMsg.toCharArray(), env, lineFile);
+            env.getMemory().popTempRoots(rootsMark);
             excIns.getEnv().setVar("traceMsg", tracePtr, lineFile);
 
             env.throwException(exceptionClassPtr);
@@ -78,4 +81,9 @@ public class ThrowExpr extends UnaryExpr {
         }
         return builder.toString();
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
@@ -9,6 +9,7 @@ import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.splObjects.SplCallable;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -64,10 +65,12 @@ public class TryStmt extends Statement {
     @Override
     protected void internalProcess(Environment env) {
 
-            TryEnvironment tryEnv = new TryEnvironment(env);
+            TryEnvironment tryEnv = new TryEnvironment(env, body.getScope());
             body.evaluate(tryEnv);
             if (tryEnv.hasException()) {
                 Reference exceptionPtr = tryEnv.getExceptionPtr();
+                // the exception is only held by 'tryEnv' until it is bound by a catch statement
+                int rootsMark = env.getMemory().addTempPtr(exceptionPtr);
                 ExceptionContainer[][] exceptionsArr = evalExceptions(env);
                 boolean caught = false;
                 OUT_LOOP:
@@ -79,12 +82,17 @@ public class TryStmt extends Statement {
                             if (bool.value) {
                                 caught = true;
                                 CatchStmt caughtError = catchStmts.get(i);
-                                BlockEnvironment catchEnv = new BlockEnvironment(env);
-                                if (caughtError.condition instanceof AsExpr) {
-                                    String name = ((AsExpr) caughtError.condition).getRight().getName();
-                                    catchEnv.defineVarAndSet(name, exceptionPtr, lineFile);
+                                if (caughtError.body.needsEnvironment()) {
+                                    BlockEnvironment catchEnv =
+                                            new BlockEnvironment(env, caughtError.body.getScope());
+                                    if (caughtError.condition instanceof AsExpr) {
+                                        String name = ((AsExpr) caughtError.condition).getRight().getName();
+                                        catchEnv.defineVarAndSet(name, exceptionPtr, lineFile);
+                                    }
+                                    caughtError.evaluate(catchEnv);
+                                } else {
+                                    caughtError.evaluate(env);
                                 }
-                                caughtError.evaluate(catchEnv);
                                 break OUT_LOOP;
                             }
                         }
@@ -94,6 +102,7 @@ public class TryStmt extends Statement {
                 if (!caught)
                     // Exception not caught, throw it to outer
                     ThrowExpr.throwException(exceptionPtr, env, lineFile);
+                env.getMemory().popTempRoots(rootsMark);
             }
 
             if (finallyBlock != null) {
@@ -103,8 +112,11 @@ public class TryStmt extends Statement {
                 }
                 FunctionEnvironment fe = (FunctionEnvironment) env2;
                 SplElement rtn = fe.temporaryRemoveRtn();
-                BlockEnvironment finallyEnv = new BlockEnvironment(env);
-                finallyBlock.evaluate(finallyEnv);
+                if (finallyBlock.needsEnvironment()) {
+                    finallyBlock.evaluate(new BlockEnvironment(env, finallyBlock.getScope()));
+                } else {
+                    finallyBlock.evaluate(env);
+                }
                 fe.setReturn(rtn, lineFile);
             }
     }
@@ -182,4 +194,19 @@ public class TryStmt extends Statement {
             this.userError = userError;
         }
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.enterBlock(body, false);
+        body.resolve(resolver);
+        resolver.exitBlock(body);
+        for (CatchStmt catchStmt : catchStmts) {
+            catchStmt.resolve(resolver);
+        }
+        if (finallyBlock != null) {
+            resolver.enterBlock(finallyBlock, true);
+            finallyBlock.resolve(resolver);
+            resolver.exitBlock(finallyBlock);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package spl.ast;
 
 import spl.interpreter.env.Environment;
+import spl.parser.Resolver;
 import spl.util.BytesIn;
 import spl.util.BytesOut;
 import spl.util.LineFilePos;
@@ -30,4 +31,9 @@ public class YieldStmt extends UnaryStmt {
     protected void internalProcess(Environment env) {
         env.yield(value.evaluate(env), lineFile);
     }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+    }
 }
@@ -2,52 +2,185 @@ package spl.interpreter;
 
 import spl.interpreter.env.Environment;
 import spl.interpreter.env.FunctionEnvironment;
+import spl.interpreter.env.InstanceEnvironment;
+import spl.interpreter.env.ModuleEnvironment;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.splErrors.NativeError;
 import spl.interpreter.splObjects.*;
+import spl.util.IntList;
 import spl.util.LineFilePos;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
 
 public class Memory {
 
+    /**
+     * Number of minor collections an object must survive before being promoted to the old generation.
+     */
+    private static final int TENURE_AGE = 2;
+    /**
+     * The heap grows if less than this ratio of the old generation is free after a major gc.
+     */
+    private static final double MIN_FREE_RATIO = 0.4;
+    /**
+     * The heap shrinks if more than this ratio of the old generation is free after a major gc.
+     */
+    private static final double MAX_FREE_RATIO = 0.7;
+    /**
+     * The heap grows if more than this ratio of running time is spent in major gc since the last heap size decision.
+     * Minor gc time is not counted since it does not depend on the heap size.
+     */
+    private static final double MAX_GC_TIME_RATIO = 0.05;
+    /**
+     * Collections are done in parallel only if the occupied heap is at least this many slots, since smaller heaps
+     * are collected faster than the threads could be coordinated.
+     */
+    private static final int PARALLEL_GC_THRESHOLD = 1 << 16;
+    /**
+     * Number of slots in each region of parallel compaction.
+     */
+    private static final int REGION_SIZE = 1 << 14;
+    /**
+     * A marking task gives half of its stack to a new task when its stack grows larger than this.
+     */
+    private static final int MARK_SPLIT_THRESHOLD = 64;
+    /**
+     * In incremental mode, a marking cycle starts when less than this ratio of the old generation is free.
+     */
+    private static final double CYCLE_START_FREE_RATIO = 0.3;
+    /**
+     * Number of objects marked by an incremental slice between two checks of the pause target.
+     */
+    private static final int SLICE_CHECK_INTERVAL = 256;
+    /**
+     * Objects of at least this many slots are allocated in the large object space.
+     */
+    private static final int LARGE_OBJECT_SIZE = 1024;
+    /**
+     * Address of the first slot of the large object space, which is above any address of the heap.
+     */
+    private static final int LARGE_SPACE_BASE = 1 << 30;
+    private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+
     public final DebugAttributes debugs = new DebugAttributes();
     public final Options options;
-    private final SplThing[] heap;
-    private final Set<Environment> temporaryEnvs = new HashSet<>();
+    private SplThing[] heap;
     /**
-     * Pointers that are managed by memory directly, not from environment.
+     * Temporary roots, which are {@code Reference}s, {@code Environment}s and {@code EvaluatedArguments} that are
+     * not yet reachable from any environment.
+     * <p>
+     * Roots are pushed and popped in LIFO order. A caller records {@link #tempRootsMark()} before pushing, then pops
+     * everything it pushed with {@link #popTempRoots(int)}. A same root may be pushed more than once.
      */
-    private final Set<Reference> managedPointers = new HashSet<>();
+    private Object[] tempRoots = new Object[64];
+    private int tempRootsTop;
     /**
      * Permanent objects that do not collected by garbage collector, such as string literals.
      */
     private final Set<Reference> permanentPointers = new HashSet<>();
     private final Deque<StackTraceNode> callStack = new ArrayDeque<>();
+    /**
+     * Addresses of old generation slots which may hold references to young objects.
+     */
+    private final BitSet rememberedSlots = new BitSet();
+    /**
+     * Environments of old objects which may hold references to young objects.
+     */
+    private final Set<Environment> rememberedEnvs = new HashSet<>();
+    /**
+     * Native objects whose fields were assigned with young objects after creation.
+     */
+    private final Set<SplObject> rememberedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Offsets of large object space slots which may hold references to young objects.
+     */
+    private final BitSet rememberedLargeSlots = new BitSet();
+    /**
+     * Space of large objects, which are collected by mark-sweep and never moved. The slot at offset {@code i} has
+     * address {@code LARGE_SPACE_BASE + i}.
+     */
+    private SplThing[] largeSpace = new SplThing[0];
+    /**
+     * Free blocks below {@code largeTop}, from offset to size. Adjacent free blocks are always merged.
+     */
+    private final TreeMap<Integer, Integer> largeFreeBlocks = new TreeMap<>();
+    private int largeTop;
+    private int largeUsed;
+    /**
+     * A major gc is triggered when large objects would occupy more than this many slots.
+     */
+    private int largeLimit;
+    /**
+     * Address of the object of each handle, or 0 if the handle is not in use.
+     * <p>
+     * References hold handles instead of addresses, so moving an object only updates this table.
+     */
+    private int[] handleAddrs = new int[1024];
+    /**
+     * Handle of the object starting at each heap address. Entries of other addresses are meaningless.
+     */
+    private int[] slotHandles = new int[0];
+    private final IntList freeHandles = new IntList();
+    /**
+     * Handles below this have been used at least once.
+     */
+    private int handleTop = 1;
+    /**
+     * Handles of young objects, the only handles that a minor gc may free.
+     */
+    private final IntList youngHandles = new IntList();
     private final GarbageCollector garbageCollector = new GarbageCollector();
-    private final int heapSize;
+    private int heapSize;
+    private int nurseryCapacity;
+    /**
+     * Number of minor collections survived by the young object starting at each address.
+     */
+    private byte[] ages;
     private int stackPointer;
-    private int availableHead = 1;
+    /**
+     * Old generation occupies {@code [1, oldHead)}, nursery occupies {@code [nurseryStart, youngHead)}.
+     */
+    private int oldHead = 1;
+    private int nurseryStart;
+    private int youngHead;
     private long totalGcTime = 0;
+    private int minorGcCount = 0;
+    private int majorGcCount = 0;
+    /**
+     * Time of the last heap size decision, and time spent since then in major gcs triggered by a full old
+     * generation or large object space, in nanoseconds.
+     */
+    private long lastSizingTime = System.nanoTime();
+    private long gcTimeSinceSizing = 0;
+    /**
+     * Whether an incremental marking cycle is running, in which the write barriers also shade the written objects.
+     */
+    private boolean marking;
 
     public Memory(Options options) {
         this.options = options;
 
-        heapSize = options.getHeapSize();
-        heap = new SplThing[heapSize];
+        heap = new SplThing[0];
+        resizeHeap(Math.min(options.getHeapInitial(), options.getHeapMax()));
+        largeLimit = options.getHeapInitial();
     }
 
     public int getHeapSize() {
-        return heapSize;
+        return heapSize + largeTop;
     }
 
     public int getHeapUsed() {
-        return availableHead;
+        return oldHead + youngHead - nurseryStart + largeUsed;
     }
 
     public int getAvailableSize() {
-        return heapSize - availableHead;
+        return getHeapSize() - getHeapUsed();
     }
 
     public synchronized void pushStack(FunctionEnvironment newCallEnv, LineFilePos lineFile) {
@@ -63,82 +196,344 @@ public class Memory {
         callStack.pop();
     }
 
+    /**
+     * @return the number of calls that can be pushed before a stack overflow
+     */
+    public synchronized int remainingStack() {
+        return options.getStackLimit() - stackPointer;
+    }
+
     public synchronized Deque<StackTraceNode> getCallStack() {
         return callStack;
     }
 
+    /**
+     * Allocates {@code size} contiguous slots.
+     * <p>
+     * Small objects are bump-allocated in the nursery, and a minor gc is triggered when the nursery is full. Objects
+     * larger than half of the nursery are allocated in the old generation directly, and objects of at least
+     * {@code LARGE_OBJECT_SIZE} slots are allocated in the large object space.
+     *
+     * @param size number of slots
+     * @param env  the environment that requests the allocation, which is also a root of gc
+     * @return pointer to the allocated object
+     */
     public Reference allocate(int size, Environment env) {
-        int ptr = innerAllocate(size);
+        int ptr;
+        if (size >= LARGE_OBJECT_SIZE) {
+            ptr = largeUsed + size <= largeLimit ? innerAllocateLarge(size) : -1;
+        } else if (size > nurseryCapacity / 2) {
+            ptr = innerAllocateOld(size);
+        } else {
+            ptr = innerAllocateYoung(size);
+            if (ptr == -1) {
+                if (debugs.printGcTrigger)
+                    System.out.println("Triggering minor gc when allocate " + size + " in " + env);
+                garbageCollector.minorCollect(env, size);
+                ptr = innerAllocateYoung(size);
+            }
+        }
         if (ptr == -1) {
             if (debugs.printGcTrigger)
-                System.out.println("Triggering gc when allocate " + size + " in " + env);
-            gc(env);
-            ptr = innerAllocate(size);
+                System.out.println("Triggering major gc when allocate " + size + " in " + env);
+            if (size >= LARGE_OBJECT_SIZE) {
+                garbageCollector.majorCollect(env, 0, true);
+                ptr = innerAllocateLarge(size);
+                if (ptr == -1 && shrinkHeapFor(size)) ptr = innerAllocateLarge(size);
+            } else {
+                garbageCollector.majorCollect(env, size, true);
+                ptr = innerAllocateYoung(size);
+                if (ptr == -1) ptr = innerAllocateOld(size);
+            }
             if (ptr == -1) {
                 throw new MemoryError("Cannot allocate size " + size + ": no memory available. " +
                         "Available memory: " + getAvailableSize() + ". ");
             }
         }
-        return new Reference(ptr);
+        return new Reference(newHandle(ptr));
+    }
+
+    private int newHandle(int addr) {
+        int handle;
+        if (freeHandles.isEmpty()) {
+            handle = handleTop++;
+            if (handle == handleAddrs.length) handleAddrs = Arrays.copyOf(handleAddrs, handle * 2);
+        } else {
+            handle = freeHandles.removeLast();
+        }
+        handleAddrs[handle] = addr;
+        if (!isLarge(addr)) slotHandles[addr] = handle;
+        if (isYoung(addr)) youngHandles.add(handle);
+        return handle;
+    }
+
+    private void freeHandle(int handle) {
+        handleAddrs[handle] = 0;
+        freeHandles.add(handle);
     }
 
-    private int innerAllocate(int size) {
-        if (getAvailableSize() >= size) {
-            int ptr = availableHead;
-            availableHead += size;
+    /**
+     * @param ref a reference
+     * @return current address of the object pointed by {@code ref}, or 0 if {@code ref} is null
+     */
+    public int addressOf(Reference ref) {
+        return handleAddrs[ref.getPtr()];
+    }
+
+    private int innerAllocateYoung(int size) {
+        if (size <= nurseryCapacity / 2 && youngHead + size <= heapSize) {
+            int ptr = youngHead;
+            youngHead += size;
+            ages[ptr] = 0;
             return ptr;
         } else {
             return -1;
         }
     }
 
+    private int innerAllocateOld(int size) {
+        if (oldHead + size > nurseryStart) {
+            // an empty nursery can give its space to the old generation until next major gc
+            if (youngHead == nurseryStart && oldHead + size <= heapSize) {
+                nurseryStart = oldHead + size;
+                youngHead = nurseryStart;
+            } else {
+                return -1;
+            }
+        }
+        int ptr = oldHead;
+        oldHead += size;
+        return ptr;
+    }
+
+    /**
+     * Allocates in the large object space, by first fit from the free blocks or by extending the used part. The
+     * large object space and the heap together never exceed {@code heapMax}.
+     *
+     * @return address of the allocated object, or {@code -1} if there is no space
+     */
+    private int innerAllocateLarge(int size) {
+        int offset = -1;
+        for (Map.Entry<Integer, Integer> block : largeFreeBlocks.entrySet()) {
+            if (block.getValue() >= size) {
+                offset = block.getKey();
+                break;
+            }
+        }
+        if (offset != -1) {
+            int blockSize = largeFreeBlocks.remove(offset);
+            if (blockSize > size) largeFreeBlocks.put(offset + size, blockSize - size);
+        } else {
+            if ((long) heapSize + largeTop + size > options.getHeapMax()) return -1;
+            offset = largeTop;
+            largeTop += size;
+            if (largeTop > largeSpace.length) {
+                largeSpace = Arrays.copyOf(largeSpace, Math.max(largeTop, largeSpace.length * 2));
+                garbageCollector.fitLargeMarks();
+            }
+        }
+        largeUsed += size;
+        return LARGE_SPACE_BASE + offset;
+    }
+
+    /**
+     * Gives free space of the heap to the large object space, right after a major gc.
+     *
+     * @param size number of slots required by the large object space
+     * @return whether the heap is shrunk
+     */
+    private boolean shrinkHeapFor(int size) {
+        long newSize = (long) options.getHeapMax() - largeTop - size;
+        if (newSize < options.getHeapInitial() || newSize < oldHead + nurseryCapacity) return false;
+        if (debugs.printGcRes)
+            System.out.println("Heap resized from " + heapSize + " to " + newSize + " for large objects.");
+        resizeHeap((int) newSize);
+        return true;
+    }
+
+    private boolean isYoung(int addr) {
+        return addr >= nurseryStart && addr < LARGE_SPACE_BASE;
+    }
+
+    private static boolean isLarge(int addr) {
+        return addr >= LARGE_SPACE_BASE;
+    }
+
+    private SplThing slot(int addr) {
+        return addr < LARGE_SPACE_BASE ? heap[addr] : largeSpace[addr - LARGE_SPACE_BASE];
+    }
+
     public void set(Reference ptr, SplObject obj) {
-        heap[ptr.getPtr()] = obj;
+        int addr = addressOf(ptr);
+        if (isLarge(addr)) largeSpace[addr - LARGE_SPACE_BASE] = obj;
+        else heap[addr] = obj;
     }
 
     public void set(int addr, SplThing obj) {
-        heap[addr] = obj;
+        boolean large = isLarge(addr);
+        if (large) largeSpace[addr - LARGE_SPACE_BASE] = obj;
+        else heap[addr] = obj;
+        if (obj instanceof Reference) {
+            Reference ref = (Reference) obj;
+            if (!isYoung(addr) && isYoung(addressOf(ref))) {
+                if (large) rememberedLargeSlots.set(addr - LARGE_SPACE_BASE);
+                else rememberedSlots.set(addr);
+            }
+            if (marking) garbageCollector.shade(ref);
+        }
+    }
+
+    /**
+     * Write barrier of environments.
+     *
+     * @param env      the environment being written
+     * @param ownerPtr pointer to the object which owns {@code env}, or {@code null} if {@code env} is not owned by
+     *                 any heap object
+     * @param value    the value written into {@code env}
+     */
+    public void recordWrite(Environment env, Reference ownerPtr, SplElement value) {
+        if (value instanceof Reference) {
+            Reference ref = (Reference) value;
+            if (ownerPtr != null && isYoung(addressOf(ref)) && !isYoung(addressOf(ownerPtr))) rememberedEnvs.add(env);
+            if (marking) garbageCollector.shade(ref);
+        }
+    }
+
+    /**
+     * Write barrier of native objects whose attribute references are assigned after creation.
+     *
+     * @param holder the native object being written
+     * @param value  the reference stored into {@code holder}
+     */
+    public void recordWrite(SplObject holder, Reference value) {
+        if (isYoung(addressOf(value))) {
+            rememberedObjects.add(holder);
+        }
+        if (marking) garbageCollector.shade(value);
     }
 
     @SuppressWarnings("unchecked")
     public <T extends SplObject> T get(Reference ptr) {
-        return (T) heap[ptr.getPtr()];
+        return (T) slot(addressOf(ptr));
     }
 
     public SplObject get(int addr) {
-        return (SplObject) heap[addr];
+        return (SplObject) slot(addr);
     }
 
     public SplThing getRaw(int addr) {
-        return heap[addr];
+        return slot(addr);
     }
 
     public SplElement getPrimitive(int addr) {
-        return (SplElement) heap[addr];
+        return (SplElement) slot(addr);
     }
 
     public void addPermanentPtr(Reference ref) {
         permanentPointers.add(ref);
     }
 
-    public void addTempEnv(Environment env) {
-        temporaryEnvs.add(env);
+    /**
+     * @return the current height of the temporary root stack
+     */
+    public int tempRootsMark() {
+        return tempRootsTop;
+    }
+
+    /**
+     * Pops all temporary roots pushed after {@code mark} was taken.
+     *
+     * @param mark the height returned by {@link #tempRootsMark()} or by one of the {@code addTemp} methods
+     */
+    public void popTempRoots(int mark) {
+        Arrays.fill(tempRoots, mark, tempRootsTop, null);
+        tempRootsTop = mark;
+    }
+
+    /**
+     * @param env the environment to be protected from gc
+     * @return the height of the temporary root stack before the push
+     */
+    public int addTempEnv(Environment env) {
+        return pushTempRoot(env);
     }
 
-    public void removeTempEnv(Environment env) {
-        temporaryEnvs.remove(env);
+    /**
+     * @param ref the reference to be protected from gc
+     * @return the height of the temporary root stack before the push
+     */
+    public int addTempPtr(Reference ref) {
+        return pushTempRoot(ref);
     }
 
-    public void addTempPtr(Reference tv) {
-        managedPointers.add(tv);
+    /**
+     * @param args the arguments to be protected from gc
+     * @return the height of the temporary root stack before the push
+     */
+    public int addTempArgs(EvaluatedArguments args) {
+        return pushTempRoot(args);
     }
 
-    public void removeTempPtr(Reference tv) {
-        managedPointers.remove(tv);
+    private int pushTempRoot(Object root) {
+        if (tempRootsTop == tempRoots.length) tempRoots = Arrays.copyOf(tempRoots, tempRootsTop * 2);
+        tempRoots[tempRootsTop] = root;
+        return tempRootsTop++;
     }
 
+    /**
+     * Performs a major gc, which collects and compacts the whole heap.
+     *
+     * @param baseEnv the current environment
+     */
     public synchronized void gc(Environment baseEnv) {
-        garbageCollector.garbageCollect(baseEnv);
+        garbageCollector.majorCollect(baseEnv, 0, false);
+    }
+
+    /**
+     * Decides the new heap size after a major gc, in a way similar to the ergonomics of jvm.
+     * <p>
+     * The heap grows if the old generation is too full, or too much time is spent in gcs triggered by a full heap
+     * while the old generation is not mostly free. It shrinks if the old generation is mostly free. The heap size is always between {@code heapInitial} and {@code heapMax}.
+     *
+     * @param required number of slots which is requested but not yet allocated
+     */
+    private void adjustHeapSize(int required) {
+        long now = System.nanoTime();
+        double gcTimeRatio = (double) gcTimeSinceSizing / Math.max(1, now - lastSizingTime);
+        lastSizingTime = now;
+        gcTimeSinceSizing = 0;
+
+        long live = (long) oldHead + required;
+        double freeRatio = 1 - (double) live / (heapSize - nurseryCapacity);
+        long newSize = heapSize;
+        if (freeRatio < MIN_FREE_RATIO || (gcTimeRatio > MAX_GC_TIME_RATIO && freeRatio <= MAX_FREE_RATIO)) {
+            newSize = Math.max((long) heapSize * 2, (long) (live / (1 - MIN_FREE_RATIO)) + options.getNurserySize());
+        } else if (freeRatio > MAX_FREE_RATIO && gcTimeRatio < MAX_GC_TIME_RATIO / 2) {
+            newSize = Math.max(heapSize / 2, (long) (live / (1 - MAX_FREE_RATIO)) + options.getNurserySize());
+        }
+        newSize = Math.min(options.getHeapMax(), Math.max(options.getHeapInitial(), newSize));
+        // the heap does not grow into space used by large objects
+        newSize = Math.min(newSize, Math.max(heapSize, options.getHeapMax() - largeTop));
+        if (newSize != heapSize) {
+            if (debugs.printGcRes)
+                System.out.println("Heap resized from " + heapSize + " to " + newSize + ".");
+            resizeHeap((int) newSize);
+        }
+    }
+
+    /**
+     * Resizes the heap, the nursery must be empty.
+     *
+     * @param newSize new number of slots
+     */
+    private void resizeHeap(int newSize) {
+        heap = Arrays.copyOf(heap, newSize);
+        slotHandles = Arrays.copyOf(slotHandles, newSize);
+        ages = new byte[newSize];
+        heapSize = newSize;
+        nurseryCapacity = Math.min(options.getNurserySize(), heapSize / 2);
+        nurseryStart = Math.max(oldHead, heapSize - nurseryCapacity);
+        youngHead = nurseryStart;
     }
 
     public Reference allocateFunction(SplCallable function, Environment env) {
@@ -172,7 +567,7 @@ public class Memory {
     }
 
     public String availableView() {
-        return String.valueOf(availableHead);
+        return String.valueOf(getAvailableSize());
     }
 
     public void setStackLimit(int stackLimit) {
@@ -183,6 +578,14 @@ public class Memory {
         return options.isCheckContract();
     }
 
+    public boolean isBytecode() {
+        return options.isBytecode();
+    }
+
+    public boolean isJit() {
+        return options.isJit();
+    }
+
     public boolean isCheckAssert() {
         return options.isCheckAssert();
     }
@@ -191,6 +594,14 @@ public class Memory {
         return totalGcTime;
     }
 
+    public int getMinorGcCount() {
+        return minorGcCount;
+    }
+
+    public int getMajorGcCount() {
+        return majorGcCount;
+    }
+
     public static class MemoryError extends NativeError {
         MemoryError(String msg) {
             super(msg);
@@ -224,21 +635,100 @@ public class Memory {
         private final boolean checkContract;
         private final boolean checkAssert;
         private int stackLimit;
-        private int heapSize;
-
-        public Options(int stackLimit, int heapSize, boolean checkContract, boolean checkAssert) {
+        private int heapInitial;
+        private int heapMax;
+        private int nurserySize;
+        /**
+         * Number of threads used by gc of large heaps, 0 for the number of available processors.
+         */
+        private int gcThreads;
+        /**
+         * Whether the old generation is marked in small slices between minor gc's, instead of all at once.
+         */
+        private boolean incrementalGc;
+        /**
+         * Target pause time of each incremental marking slice, in milliseconds.
+         */
+        private int gcPauseTarget;
+        /**
+         * Whether blocks are run by the bytecode engine instead of the tree interpreter.
+         */
+        private final boolean bytecode;
+        /**
+         * Whether hot functions are compiled to jvm classes.
+         */
+        private final boolean jit;
+
+        public Options(int stackLimit,
+                       int heapInitial,
+                       int heapMax,
+                       int nurserySize,
+                       int gcThreads,
+                       boolean incrementalGc,
+                       int gcPauseTarget,
+                       boolean bytecode,
+                       boolean jit,
+                       boolean checkContract,
+                       boolean checkAssert) {
             this.stackLimit = stackLimit;
-            this.heapSize = heapSize;
+            this.heapInitial = heapInitial;
+            this.heapMax = heapMax;
+            this.nurserySize = nurserySize;
+            this.gcThreads = gcThreads;
+            this.incrementalGc = incrementalGc;
+            this.gcPauseTarget = gcPauseTarget;
+            this.bytecode = bytecode;
+            this.jit = jit;
             this.checkContract = checkContract;
             this.checkAssert = checkAssert;
         }
 
-        public int getHeapSize() {
-            return heapSize;
+        public int getHeapInitial() {
+            return heapInitial;
+        }
+
+        public void setHeapInitial(int heapInitial) {
+            this.heapInitial = heapInitial;
+        }
+
+        public int getHeapMax() {
+            return heapMax;
+        }
+
+        public void setHeapMax(int heapMax) {
+            this.heapMax = heapMax;
+        }
+
+        public int getNurserySize() {
+            return nurserySize;
         }
 
-        public void setHeapSize(int heapSize) {
-            this.heapSize = heapSize;
+        public void setNurserySize(int nurserySize) {
+            this.nurserySize = nurserySize;
+        }
+
+        public int getGcThreads() {
+            return gcThreads;
+        }
+
+        public void setGcThreads(int gcThreads) {
+            this.gcThreads = gcThreads;
+        }
+
+        public boolean isIncrementalGc() {
+            return incrementalGc;
+        }
+
+        public void setIncrementalGc(boolean incrementalGc) {
+            this.incrementalGc = incrementalGc;
+        }
+
+        public int getGcPauseTarget() {
+            return gcPauseTarget;
+        }
+
+        public void setGcPauseTarget(int gcPauseTarget) {
+            this.gcPauseTarget = gcPauseTarget;
         }
 
         public int getStackLimit() {
@@ -249,6 +739,14 @@ public class Memory {
             this.stackLimit = stackLimit;
         }
 
+        public boolean isBytecode() {
+            return bytecode;
+        }
+
+        public boolean isJit() {
+            return jit;
+        }
+
         public boolean isCheckContract() {
             return checkContract;
         }
@@ -260,150 +758,752 @@ public class Memory {
 
     private class GarbageCollector {
 
-        private final Map<Integer, Reference> markedRefs = new HashMap<>();
+        /**
+         * One bit for each heap slot, set if an object starting at that slot is marked.
+         */
+        private long[] markBits = new long[0];
+        /**
+         * Marks of the large object space, indexed by offset.
+         */
+        private long[] largeMarkBits = new long[0];
+        /**
+         * New address of each marked object during a major gc, indexed by its current address.
+         */
+        private int[] forwarding = new int[0];
+        /**
+         * Stamp of the running collection, each environment is visited once for each stamp.
+         */
+        private int visitStamp;
+        private int lastStamp;
+        /**
+         * Objects promoted by the last minor gc occupy {@code [promotedBegin, oldHead)}.
+         */
+        private int promotedBegin;
+        /**
+         * Grey objects and environments of the running incremental marking cycle.
+         */
+        private final Deque<Object> greyStack = new ArrayDeque<>();
+        /**
+         * Stamp of the running incremental marking cycle.
+         */
+        private int cycleStamp;
+        /**
+         * Whether the running collection is a minor gc, which only marks young objects.
+         */
+        private boolean minor;
+        /**
+         * Whether the running work is an incremental marking slice, which only marks old objects.
+         */
+        private boolean slice;
+        /**
+         * Whether the running collection uses multiple threads.
+         */
+        private boolean parallel;
+        private ForkJoinPool pool;
+
+        /**
+         * Marks the object at {@code addr}.
+         *
+         * @return {@code true} if the object was not marked before
+         */
+        private boolean tryMark(int addr) {
+            long[] bits = markBits;
+            if (isLarge(addr)) {
+                bits = largeMarkBits;
+                addr -= LARGE_SPACE_BASE;
+            }
+            int index = addr >>> 6;
+            long bit = 1L << addr;
+            if (!parallel) {
+                if ((bits[index] & bit) != 0) return false;
+                bits[index] |= bit;
+                return true;
+            }
+            long word;
+            do {
+                word = (long) LONG_ARRAY.getVolatile(bits, index);
+                if ((word & bit) != 0) return false;
+            } while (!LONG_ARRAY.compareAndSet(bits, index, word, word | bit));
+            return true;
+        }
 
-        private void addRef(int addr, Reference ref) {
-            Reference addedRef = markedRefs.get(addr);
-            if (addedRef != null) {
-                if (addedRef != ref) {
-                    throw new MemoryError("Multiple references point to same address.");
-                }
-            } else {
-                markedRefs.put(addr, ref);
+        /**
+         * Resizes the marks of the large object space to its current size, keeping existing marks.
+         */
+        private void fitLargeMarks() {
+            largeMarkBits = Arrays.copyOf(largeMarkBits, (largeSpace.length + 63) >>> 6);
+        }
+
+        private boolean isMarked(int addr) {
+            if (isLarge(addr)) {
+                int offset = addr - LARGE_SPACE_BASE;
+                return (largeMarkBits[offset >>> 6] & (1L << offset)) != 0;
             }
+            return (markBits[addr >>> 6] & (1L << addr)) != 0;
         }
 
-        private boolean refAlreadyAdded(int objAddr) {
-            return markedRefs.containsKey(objAddr);
+        /**
+         * @return the address of the first marked object in {@code [from, to)}, or {@code to} if there is none
+         */
+        private int nextMarked(int from, int to) {
+            if (from >= to) return to;
+            int wordIndex = from >>> 6;
+            long word = markBits[wordIndex] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    int addr = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    return Math.min(addr, to);
+                }
+                if (++wordIndex << 6 >= to) return to;
+                word = markBits[wordIndex];
+            }
         }
 
-        private void garbageCollect(Environment baseEnv) {
+        /**
+         * @param baseEnv  the current environment
+         * @param required number of slots which triggered this gc but not yet allocated
+         */
+        private void minorCollect(Environment baseEnv, int required) {
             long beginTime = System.currentTimeMillis();
             if (debugs.printGcRes)
-                System.out.println("Doing gc! Available before gc: " + getAvailableSize());
+                System.out.println("Doing minor gc! Nursery used before gc: " + (youngHead - nurseryStart));
 
-            // set all marks to 0
+            minor = true;
             initMarks();
+            Deque<Object> stack = new ArrayDeque<>();
+            pushRoots(baseEnv, stack);
+            pushRememberedSet(stack);
+            markAll(stack);
+
+            // survivors overflowing the nursery are tenured early, otherwise the nursery stays full and every
+            // following allocation falls through to a major gc
+            int survived = liveSize(nurseryStart, youngHead);
+            boolean overflow = nurseryCapacity - survived < required || survived > nurseryCapacity / 2;
+            int promotedCount = evacuate(overflow);
+            updateRememberedSet();
+            if (marking) {
+                // young marks are stale after moving, and their slots may become old generation later
+                clearMarks(nurseryStart, heapSize);
+                blackenPromoted();
+            }
 
-            // mark
-            // global root
-            mark(baseEnv);
+            minorGcCount++;
+            totalGcTime += (System.currentTimeMillis() - beginTime);
+            if (debugs.printGcRes)
+                System.out.println("minor gc done! Promoted: " + promotedCount +
+                        ", nursery used after gc: " + (youngHead - nurseryStart) +
+                        ". Time used: " + (System.currentTimeMillis() - beginTime));
 
-            // call stack roots
-            for (StackTraceNode stn : callStack) {
-                mark(stn.env);
+            if (options.isIncrementalGc()) incrementalStep(baseEnv);
+        }
+
+        /**
+         * Does a bounded amount of old generation marking after a minor gc, starting a new marking cycle if the old
+         * generation is getting full. The cycle is finished by a major gc once nothing is left to mark.
+         */
+        private void incrementalStep(Environment baseEnv) {
+            long beginTime = System.currentTimeMillis();
+            long beginNano = System.nanoTime();
+            if (!marking) {
+                int oldCapacity = heapSize - nurseryCapacity;
+                if (oldCapacity - oldHead >= oldCapacity * CYCLE_START_FREE_RATIO) return;
+
+                if (debugs.printGcRes)
+                    System.out.println("Starting incremental marking! Old generation used: " + oldHead);
+                minor = false;
+                initMarks();
+                marking = true;
+                cycleStamp = ++lastStamp;
+                slice = true;
+                pushRoots(baseEnv, greyStack);
+                slice = false;
             }
 
-            // other roots
-            for (Environment env : temporaryEnvs) {
-                mark(env);
+            minor = false;
+            parallel = false;
+            slice = true;
+            visitStamp = cycleStamp;
+            boolean done = drainSlice(beginNano + options.getGcPauseTarget() * 1_000_000L);
+            slice = false;
+
+            long nanoUsed = System.nanoTime() - beginNano;
+            gcTimeSinceSizing += nanoUsed;
+            totalGcTime += nanoUsed / 1_000_000;
+            if (debugs.printGcRes)
+                System.out.println("Incremental marking slice done! Grey remaining: " + greyStack.size() +
+                        ". Time used: " + (System.currentTimeMillis() - beginTime));
+
+            if (done) {
+                if (debugs.printGcTrigger)
+                    System.out.println("Triggering major gc to finish incremental marking in " + baseEnv);
+                majorCollect(baseEnv, 0, true);
+            }
+        }
+
+        /**
+         * Marks from the grey stack until it is empty or the deadline is reached. At least one batch of objects is
+         * marked in each slice, so that the cycle always progresses.
+         *
+         * @param deadline deadline in nanoseconds
+         * @return {@code true} if the grey stack is empty
+         */
+        private boolean drainSlice(long deadline) {
+            Object item;
+            int count = 0;
+            while ((item = greyStack.poll()) != null) {
+                if (item instanceof Reference) markReference((Reference) item, greyStack);
+                else markEnv((Environment) item, greyStack);
+
+                if (++count % SLICE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) return false;
             }
+            return true;
+        }
 
-            // permanent objects
-            for (Reference pr : permanentPointers) {
-                SplObject obj = get(pr);
-                markObjectAsUsed(obj, pr.getPtr(), pr);
+        /**
+         * Marks the objects promoted by the last minor gc as black, since references to them were not shaded by the
+         * write barrier while they were young.
+         */
+        private void blackenPromoted() {
+            minor = false;
+            slice = true;
+            for (int addr = promotedBegin; addr < oldHead; addr += objectSize(get(addr))) {
+                if (tryMark(addr)) pushChildren(addr, get(addr), greyStack);
             }
+            slice = false;
+        }
+
+        /**
+         * Shades an old object grey if it is written into the heap or an environment during an incremental marking
+         * cycle. Young objects are not shaded since the final marking scans all old-to-young references.
+         */
+        private void shade(Reference ref) {
+            int addr = addressOf(ref);
+            if (addr == 0 || isYoung(addr) || isMarked(addr)) return;
+            greyStack.push(ref);
+        }
+
+        /**
+         * @param baseEnv     the current environment
+         * @param required    number of slots which triggered this gc but not yet allocated
+         * @param byOccupancy whether this gc is triggered by a full old generation or large object space, only then
+         *                    its time counts for growing the heap
+         */
+        private void majorCollect(Environment baseEnv, int required, boolean byOccupancy) {
+            long beginTime = System.currentTimeMillis();
+            long beginNano = System.nanoTime();
+            if (debugs.printGcRes)
+                System.out.println("Doing major gc! Available before gc: " + getAvailableSize());
 
-            // temp object roots
-            for (Reference tempPtr : managedPointers) {
-                SplObject obj = get(tempPtr);
-                markObjectAsUsed(obj, tempPtr.getPtr(), tempPtr);
+            minor = false;
+            initMarks();
+            Deque<Object> stack = new ArrayDeque<>();
+            pushRoots(baseEnv, stack);
+            if (marking) {
+                // finishes the incremental cycle, old objects marked by the cycle are kept marked
+                stack.addAll(greyStack);
+                greyStack.clear();
+                pushRememberedSet(stack);
+                marking = false;
             }
+            markAll(stack);
 
             // sweep
+            freeDeadHandles();
             sweep();
+            sweepLarge();
+            youngHandles.clear();
+
+            // all survivors are in old generation now
+            rememberedSlots.clear();
+            rememberedLargeSlots.clear();
+            rememberedEnvs.clear();
+            rememberedObjects.clear();
 
+            if (byOccupancy) gcTimeSinceSizing += System.nanoTime() - beginNano;
+            adjustHeapSize(required);
+
+            majorGcCount++;
             totalGcTime += (System.currentTimeMillis() - beginTime);
             if (debugs.printGcRes)
-                System.out.println("gc done! Available after gc: " + getAvailableSize() +
+                System.out.println("major gc done! Available after gc: " + getAvailableSize() +
                         ". Time used: " + (System.currentTimeMillis() - beginTime));
         }
 
         private void initMarks() {
-            markedRefs.clear();
+            if (!marking) Arrays.fill(largeMarkBits, 0);
+            if (forwarding.length != heapSize) {
+                markBits = new long[(heapSize + 63) >>> 6];
+                forwarding = new int[heapSize];
+            } else if (marking) {
+                // old marks belong to the running incremental cycle
+                clearMarks(nurseryStart, heapSize);
+            } else {
+                Arrays.fill(markBits, 0);
+            }
+            int gcThreads = options.getGcThreads() > 0 ?
+                    options.getGcThreads() : Runtime.getRuntime().availableProcessors();
+            parallel = gcThreads > 1 && getHeapUsed() >= PARALLEL_GC_THRESHOLD;
+            if (parallel && pool == null) pool = new ForkJoinPool(gcThreads);
+            visitStamp = ++lastStamp;
+        }
+
+        /**
+         * Clears marks of addresses {@code [from, to)}.
+         */
+        private void clearMarks(int from, int to) {
+            if (from >= to) return;
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (first == last) {
+                markBits[first] &= ~(firstMask & lastMask);
+            } else {
+                markBits[first] &= ~firstMask;
+                Arrays.fill(markBits, first + 1, last, 0);
+                markBits[last] &= ~lastMask;
+            }
+        }
+
+        /**
+         * Pushes all references from old objects to young objects.
+         */
+        private void pushRememberedSet(Deque<Object> stack) {
+            for (int slot = rememberedSlots.nextSetBit(0); slot >= 0; slot = rememberedSlots.nextSetBit(slot + 1)) {
+                pushElement(getPrimitive(slot), stack);
+            }
+            for (int offset = rememberedLargeSlots.nextSetBit(0); offset >= 0;
+                 offset = rememberedLargeSlots.nextSetBit(offset + 1)) {
+                pushElement((SplElement) largeSpace[offset], stack);
+            }
+            for (Environment env : rememberedEnvs) {
+                pushEnvAttributes(env, stack);
+            }
+            for (SplObject obj : rememberedObjects) {
+                pushAttrReferences(obj, stack);
+            }
         }
 
-        private void mark(Environment env) {
-            if (env == null) return;
+        private void pushRoots(Environment baseEnv, Deque<Object> stack) {
+            // global root
+            pushEnv(baseEnv, stack);
+
+            // call stack roots
+            for (StackTraceNode stn : callStack) {
+                pushEnv(stn.env, stack);
+            }
 
-            Set<SplElement> attr = env.attributes();
-            for (SplElement ele : attr) {
-                if (ele instanceof Reference) {
-                    Reference ptr = (Reference) ele;
+            // permanent objects
+            for (Reference pr : permanentPointers) {
+                pushReference(pr, stack);
+            }
 
-                    // the null case represent those constants which has not been set yet
-                    SplObject obj = get(ptr);
-                    markObjectAsUsed(obj, ptr.getPtr(), ptr);
+            // temporary roots
+            for (int i = 0; i < tempRootsTop; i++) {
+                Object root = tempRoots[i];
+                if (root instanceof Reference) {
+                    pushReference((Reference) root, stack);
+                } else if (root instanceof Environment) {
+                    pushEnv((Environment) root, stack);
+                } else {
+                    // arguments not yet passed
+                    EvaluatedArguments args = (EvaluatedArguments) root;
+                    for (SplElement arg : args.positionalArgs) {
+                        pushElement(arg, stack);
+                    }
+                    for (SplElement arg : args.keywordArgs.values()) {
+                        pushElement(arg, stack);
+                    }
                 }
             }
-            mark(env.outer);
-            if (env instanceof FunctionEnvironment) {
-                mark(((FunctionEnvironment) env).callingEnv);
+        }
+
+        private void pushElement(SplElement ele, Deque<Object> stack) {
+            if (ele instanceof Reference) pushReference((Reference) ele, stack);
+        }
+
+        /**
+         * Pushes {@code ref} unless it is obviously not to be marked. The check is repeated when it is popped.
+         */
+        private void pushReference(Reference ref, Deque<Object> stack) {
+            int addr = addressOf(ref);
+            if (addr == 0 || (minor && !isYoung(addr)) || (slice && isYoung(addr)) || isMarked(addr)) return;
+            stack.push(ref);
+        }
+
+        private void pushEnv(Environment env, Deque<Object> stack) {
+            if (env != null) stack.push(env);
+        }
+
+        private void pushEnvAttributes(Environment env, Deque<Object> stack) {
+            env.visitValues(ele -> {
+                pushElement(ele, stack);
+                return false;
+            });
+        }
+
+        private void pushAttrReferences(SplObject obj, Deque<Object> stack) {
+            List<Reference> attrRefs = obj.listAttrReferences();
+            if (attrRefs != null) {
+                for (Reference attrRef : attrRefs) {
+                    if (attrRef != null) pushReference(attrRef, stack);
+                }
             }
         }
 
-        private void markObjectAsUsed(SplObject obj, int objAddr, Reference ref) {
-            if (obj == null) return;
-            if (objAddr == 0) return;
-            if (refAlreadyAdded(objAddr)) return;
+        /**
+         * Marks everything reachable from the references and environments in {@code stack}.
+         */
+        private void markAll(Deque<Object> stack) {
+            if (parallel) pool.invoke(new MarkTask(stack));
+            else drain(stack, null);
+        }
+
+        /**
+         * Processes items of {@code stack} until it is empty. Marking uses this explicit stack instead of recursion,
+         * so that long chains of objects cannot overflow the java stack.
+         *
+         * @param stack the mark stack
+         * @param task  the parallel task running this, or {@code null} in a serial collection
+         */
+        private void drain(Deque<Object> stack, MarkTask task) {
+            Object item;
+            while ((item = stack.poll()) != null) {
+                if (item instanceof Reference) markReference((Reference) item, stack);
+                else markEnv((Environment) item, stack);
+
+                if (task != null && stack.size() > MARK_SPLIT_THRESHOLD) task.split();
+            }
+        }
+
+        private void markEnv(Environment env, Deque<Object> stack) {
+            if (!env.visitByGc(visitStamp)) return;
 
-            if (ref != null) {
-                addRef(objAddr, ref);
+            pushEnvAttributes(env, stack);
+            pushEnv(env.outer, stack);
+            if (env instanceof FunctionEnvironment) {
+                pushEnv(((FunctionEnvironment) env).callingEnv, stack);
             }
+        }
 
+        private void markReference(Reference ref, Deque<Object> stack) {
+            int objAddr = addressOf(ref);
+            if (objAddr == 0) return;
+            SplObject obj = get(objAddr);
+            if (obj == null) return;
+            if (minor ? !isYoung(objAddr) : slice && isYoung(objAddr)) return;
+            if (!tryMark(objAddr)) return;
+            pushChildren(objAddr, obj, stack);
+        }
+
+        private void pushChildren(int objAddr, SplObject obj, Deque<Object> stack) {
             if (obj instanceof SplArray) {
                 int arrBegin = objAddr + 1;
                 SplArray array = (SplArray) obj;
-                for (int i = 0; i < array.length.value; i++) {
-                    int p = arrBegin + i;
-                    SplElement ele = getPrimitive(p);
-                    if (ele instanceof Reference) {
-                        // Object[] stores reference as array element, they should also be retargeted
-                        Reference refInArray = (Reference) ele;
-                        SplObject pointed = get(refInArray);
-                        markObjectAsUsed(pointed, p, null);
-                        addRef(refInArray.getPtr(), refInArray);
-                    }
+                for (int i = 0; i < array.slotCount() - 1; i++) {
+                    // Object[] stores reference as array element, they should also be retargeted
+                    pushElement(getPrimitive(arrBegin + i), stack);
                 }
             } else if (obj instanceof SplModule) {
-                SplModule module = (SplModule) obj;
-                mark(module.getEnv());
+                pushEnv(((SplModule) obj).getEnv(), stack);
             } else if (obj instanceof Instance) {
-                Instance instance = (Instance) obj;
-                mark(instance.getEnv());
+                pushEnv(((Instance) obj).getEnv(), stack);
+            }
+
+            pushAttrReferences(obj, stack);
+        }
+
+        /**
+         * A marking task of parallel gc, which owns a mark stack and gives part of it to idle threads.
+         */
+        @SuppressWarnings("serial")  // never serialized
+        private class MarkTask extends RecursiveAction {
+            private final Deque<Object> stack;
+            private final List<MarkTask> forked = new ArrayList<>();
+
+            MarkTask(Deque<Object> stack) {
+                this.stack = stack;
+            }
+
+            @Override
+            protected void compute() {
+                drain(stack, this);
+                for (MarkTask task : forked) {
+                    task.join();
+                }
+            }
+
+            void split() {
+                if (getQueuedTaskCount() > 0) return;  // other threads still have work to steal
+                Deque<Object> half = new ArrayDeque<>();
+                for (int i = stack.size() / 2; i > 0; i--) {
+                    half.push(stack.pollLast());
+                }
+                MarkTask task = new MarkTask(half);
+                task.fork();
+                forked.add(task);
+            }
+        }
+
+        private int objectSize(SplObject obj) {
+            return obj instanceof SplArray ? ((SplArray) obj).slotCount() : 1;
+        }
+
+        /**
+         * Moves all marked young objects. Objects old enough are promoted to the old generation if there is space,
+         * others are compacted to the beginning of the nursery.
+         *
+         * @param tenureAll whether to promote objects of any age
+         * @return number of promoted objects
+         */
+        private int evacuate(boolean tenureAll) {
+            // handles of dead young objects are freed, while the marks are still at the old addresses
+            int liveCount = 0;
+            for (int i = 0; i < youngHandles.size(); i++) {
+                int handle = youngHandles.get(i);
+                if (isMarked(handleAddrs[handle])) youngHandles.set(liveCount++, handle);
+                else freeHandle(handle);
+            }
+            youngHandles.truncate(liveCount);
+
+            promotedBegin = oldHead;
+            int promotedCount = 0;
+            int youngDest = nurseryStart;
+            int p = nurseryStart;
+            while ((p = nextMarked(p, youngHead)) < youngHead) {
+                int handle = slotHandles[p];
+                int size = objectSize(get(p));
+                int age = ages[p] + 1;
+                int newAddr;
+                if ((tenureAll || age >= TENURE_AGE) && oldHead + size <= nurseryStart) {
+                    newAddr = oldHead;
+                    oldHead += size;
+                    promotedCount++;
+                } else {
+                    newAddr = youngDest;
+                    youngDest += size;
+                    ages[newAddr] = (byte) Math.min(age, Byte.MAX_VALUE);
+                }
+                handleAddrs[handle] = newAddr;
+                slotHandles[newAddr] = handle;
+                System.arraycopy(heap, p, heap, newAddr, size);
+                p += size;
+            }
+            Arrays.fill(heap, youngDest, youngHead, null);
+            youngHead = youngDest;
+
+            if (promotedCount > 0) {
+                liveCount = 0;
+                for (int i = 0; i < youngHandles.size(); i++) {
+                    int handle = youngHandles.get(i);
+                    if (isYoung(handleAddrs[handle])) youngHandles.set(liveCount++, handle);
+                }
+                youngHandles.truncate(liveCount);
             }
+            return promotedCount;
+        }
+
+        /**
+         * Drops remembered entries that no longer refer to young objects, and remembers newly promoted objects
+         * that still refer to young objects.
+         */
+        private void updateRememberedSet() {
+            for (int slot = rememberedSlots.nextSetBit(0); slot >= 0; slot = rememberedSlots.nextSetBit(slot + 1)) {
+                if (!isYoungRef(getPrimitive(slot))) rememberedSlots.clear(slot);
+            }
+            for (int offset = rememberedLargeSlots.nextSetBit(0); offset >= 0;
+                 offset = rememberedLargeSlots.nextSetBit(offset + 1)) {
+                if (!isYoungRef((SplElement) largeSpace[offset])) rememberedLargeSlots.clear(offset);
+            }
+            rememberedEnvs.removeIf(env -> !envHasYoungRef(env));
+            rememberedObjects.removeIf(obj -> !objHasYoungRef(obj));
+
+            for (int addr = promotedBegin; addr < oldHead; addr += objectSize(get(addr))) {
+                SplObject obj = get(addr);
+                if (obj instanceof SplArray) {
+                    int arrBegin = addr + 1;
+                    SplArray array = (SplArray) obj;
+                    for (int i = 0; i < array.slotCount() - 1; i++) {
+                        if (isYoungRef(getPrimitive(arrBegin + i))) rememberedSlots.set(arrBegin + i);
+                    }
+                } else if (obj instanceof SplModule) {
+                    ModuleEnvironment env = ((SplModule) obj).getEnv();
+                    if (envHasYoungRef(env)) rememberedEnvs.add(env);
+                } else if (obj instanceof Instance) {
+                    InstanceEnvironment env = ((Instance) obj).getEnv();
+                    if (envHasYoungRef(env)) rememberedEnvs.add(env);
+                }
+                if (objHasYoungRef(obj)) rememberedObjects.add(obj);
+            }
+        }
+
+        private boolean isYoungRef(SplElement ele) {
+            return ele instanceof Reference && isYoung(addressOf((Reference) ele));
+        }
 
+        private boolean envHasYoungRef(Environment env) {
+            return env.visitValues(this::isYoungRef);
+        }
+
+        private boolean objHasYoungRef(SplObject obj) {
             List<Reference> attrRefs = obj.listAttrReferences();
             if (attrRefs != null) {
                 for (Reference attrRef : attrRefs) {
-                    if (attrRef != null) {
-                        markObjectAsUsed(get(attrRef), attrRef.getPtr(), attrRef);
-                    }
+                    if (isYoungRef(attrRef)) return true;
                 }
             }
+            return false;
+        }
+
+        /**
+         * Frees handles of all unmarked objects.
+         */
+        private void freeDeadHandles() {
+            for (int handle = 1; handle < handleTop; handle++) {
+                int addr = handleAddrs[handle];
+                if (addr != 0 && !isMarked(addr)) freeHandle(handle);
+            }
         }
 
         private void sweep() {
-            int curAddr = 1;
-            for (int p = 1; p < heapSize; p++) {
-                Reference ref = markedRefs.get(p);
-                if (ref != null) {
-                    int newAddr = curAddr++;
-                    ref.setPtr(newAddr);
-
-                    SplObject obj = get(p);
-                    heap[newAddr] = heap[p];
-                    if (obj instanceof SplArray) {
-                        SplArray array = (SplArray) obj;
-                        // avoid using System.arraycopy() because that may overlap
-                        for (int i = 0; i < array.length.value; i++) {
-                            heap[curAddr++] = heap[++p];
-                        }
+            // only the occupied parts of both generations are visited, so that the cost does not grow with heap size
+            int oldEnd = oldHead;
+            int youngBegin = nurseryStart;
+            int youngEnd = youngHead;
+
+            // the occupied ranges are divided into regions, the forwarding address of each region is the sum of
+            // live sizes of all regions before it
+            int[] regionBegins = regions(1, oldEnd, youngBegin, youngEnd);
+            int regionCount = regionBegins.length / 2;
+            int[] regionDest = new int[regionCount + 1];
+            forEachRegion(regionCount, r -> regionDest[r + 1] = liveSize(regionBegins[r * 2], regionBegins[r * 2 + 1]));
+            regionDest[0] = 1;
+            for (int r = 0; r < regionCount; r++) {
+                regionDest[r + 1] += regionDest[r];
+            }
+            forEachRegion(regionCount,
+                    r -> forward(regionBegins[r * 2], regionBegins[r * 2 + 1], regionDest[r]));
+
+            // moving is sequential, since the destination of a region may overlap the source of regions before it
+            for (int r = 0; r < regionCount; r++) {
+                relocate(regionBegins[r * 2], regionBegins[r * 2 + 1]);
+            }
+            int curAddr = regionDest[regionCount];
+            if (curAddr < oldEnd) Arrays.fill(heap, curAddr, oldEnd, null);
+            Arrays.fill(heap, Math.max(curAddr, youngBegin), youngEnd, null);
+            oldHead = curAddr;
+            nurseryStart = Math.max(oldHead, heapSize - nurseryCapacity);
+            youngHead = nurseryStart;
+        }
+
+        /**
+         * Frees unmarked objects of the large object space. Marked objects stay where they are, so the cost only
+         * depends on the number of large objects and the size of dead ones.
+         */
+        private void sweepLarge() {
+            Map<Integer, Integer> oldFreeBlocks = new HashMap<>(largeFreeBlocks);
+            largeFreeBlocks.clear();
+            int p = 0;
+            int freeBegin = -1;  // begin of the free block that ends at p, if any
+            while (p < largeTop) {
+                int size;
+                Integer freeSize = oldFreeBlocks.get(p);
+                if (freeSize != null) {
+                    size = freeSize;
+                } else {
+                    SplObject obj = (SplObject) largeSpace[p];
+                    size = objectSize(obj);
+                    if ((largeMarkBits[p >>> 6] & (1L << p)) != 0) {
+                        if (freeBegin != -1) largeFreeBlocks.put(freeBegin, p - freeBegin);
+                        freeBegin = -1;
+                        p += size;
+                        continue;
                     }
+                    Arrays.fill(largeSpace, p, p + size, null);
+                    largeUsed -= size;
+                }
+                if (freeBegin == -1) freeBegin = p;
+                p += size;
+            }
+            if (freeBegin != -1) largeTop = freeBegin;
+            largeLimit = Math.max(options.getHeapInitial(), largeUsed * 2);
+            if (largeTop < largeSpace.length / 4) {
+                largeSpace = Arrays.copyOf(largeSpace, largeTop * 2);
+                fitLargeMarks();
+            }
+        }
+
+        /**
+         * Divides the ranges {@code [oldBegin, oldEnd)} and {@code [youngBegin, youngEnd)} into regions.
+         *
+         * @return begin and end of each region, flattened
+         */
+        private int[] regions(int oldBegin, int oldEnd, int youngBegin, int youngEnd) {
+            int oldCount = (oldEnd - oldBegin + REGION_SIZE - 1) / REGION_SIZE;
+            int youngCount = (youngEnd - youngBegin + REGION_SIZE - 1) / REGION_SIZE;
+            int[] res = new int[(oldCount + youngCount) * 2];
+            for (int r = 0; r < oldCount; r++) {
+                res[r * 2] = oldBegin + r * REGION_SIZE;
+                res[r * 2 + 1] = Math.min(oldEnd, oldBegin + (r + 1) * REGION_SIZE);
+            }
+            for (int r = 0; r < youngCount; r++) {
+                res[(oldCount + r) * 2] = youngBegin + r * REGION_SIZE;
+                res[(oldCount + r) * 2 + 1] = Math.min(youngEnd, youngBegin + (r + 1) * REGION_SIZE);
+            }
+            return res;
+        }
+
+        private void forEachRegion(int regionCount, java.util.function.IntConsumer action) {
+            if (parallel && regionCount > 1) {
+                pool.submit(() -> IntStream.range(0, regionCount).parallel().forEach(action)).join();
+            } else {
+                for (int r = 0; r < regionCount; r++) {
+                    action.accept(r);
                 }
             }
-            availableHead = curAddr;
+        }
+
+        /**
+         * @return total size of marked objects starting in {@code [begin, end)}
+         */
+        private int liveSize(int begin, int end) {
+            int size = 0;
+            int p = begin;
+            while ((p = nextMarked(p, end)) < end) {
+                int objSize = objectSize(get(p));
+                size += objSize;
+                p += objSize;
+            }
+            return size;
+        }
+
+        /**
+         * Computes the new address of each marked object starting in {@code [begin, end)}, as if they are slid to
+         * the lowest addresses starting from {@code curAddr}, and retargets their references.
+         */
+        private void forward(int begin, int end, int curAddr) {
+            int p = begin;
+            while ((p = nextMarked(p, end)) < end) {
+                int size = objectSize(get(p));
+                forwarding[p] = curAddr;
+                handleAddrs[slotHandles[p]] = curAddr;
+                curAddr += size;
+                p += size;
+            }
+        }
+
+        /**
+         * Moves each marked object starting in {@code [begin, end)} to its forwarding address.
+         */
+        private void relocate(int begin, int end) {
+            int p = begin;
+            while ((p = nextMarked(p, end)) < end) {
+                int size = objectSize(get(p));
+                // objects only move towards lower addresses, so copying forward never overwrites unmoved slots
+                System.arraycopy(heap, p, heap, forwarding[p], size);
+                slotHandles[forwarding[p]] = slotHandles[p];
+                p += size;
+            }
         }
     }
 }
@@ -9,9 +9,13 @@ public class BlockEnvironment extends SubAbstractEnvironment {
         super(outer);
     }
 
+    public BlockEnvironment(Environment outer, Scope scope) {
+        super(outer, scope);
+    }
+
     @Override
     public boolean interrupted() {
-        return outer.interrupted();
+        return outerInterruptHolder.interrupted();
     }
 
     @Override
@@ -30,6 +34,6 @@ public class BlockEnvironment extends SubAbstractEnvironment {
     }
 
     public void invalidate() {
-        variables.clear();
+        clearNames();
     }
 }
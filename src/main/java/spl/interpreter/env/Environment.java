@@ -8,14 +8,22 @@ import spl.interpreter.primitives.Undefined;
 import spl.util.Constants;
 import spl.util.LineFilePos;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 public abstract class Environment {
 
     private static int envCount = 0;
+    /**
+     * Changed whenever a name is defined in a top level environment, or a namespace is added to any environment.
+     */
+    private static volatile int namesVersion = 0;
+    private static final AtomicIntegerFieldUpdater<Environment> GC_STAMP =
+            AtomicIntegerFieldUpdater.newUpdater(Environment.class, "gcStamp");
     public final Environment outer;
     public final GlobalEnvironment globalEnv;
     /**
@@ -23,20 +31,82 @@ public abstract class Environment {
      */
     private final int envId;
     protected Memory memory;
+    /**
+     * Pointer to the heap object which owns this environment, or {@code null} if this environment is not a part of
+     * any object.
+     */
+    private Reference ownerPtr;
+    /**
+     * Stamp of the last garbage collection that visited this environment.
+     */
+    private volatile int gcStamp;
 
-    protected Map<String, VarEntry> variables = new HashMap<>();
+    /**
+     * The static layout of this environment, or {@code null} if this environment has none.
+     */
+    private final Scope scope;
+    /**
+     * Entries of names declared in {@code scope}, indexed by their slots.
+     */
+    private final VarEntry[] slots;
+    /**
+     * Entries of names that are not declared in {@code scope}.
+     * <p>
+     * This map is always created for environments without a static layout, and is created on demand otherwise.
+     */
+    protected Map<String, VarEntry> variables;
 
     public Environment(Memory memory, Environment outer) {
+        this(memory, outer, null);
+    }
+
+    public Environment(Memory memory, Environment outer, Scope scope) {
         this.memory = memory;
         this.outer = outer;
         this.globalEnv = outer == null ? (GlobalEnvironment) this : outer.globalEnv;
         this.envId = envCount++;
+        this.scope = scope;
+        if (scope == null) {
+            this.slots = null;
+            this.variables = new HashMap<>();
+        } else {
+            this.slots = new VarEntry[scope.size()];
+        }
+    }
+
+    /**
+     * Returns a stamp of names visible from top level environments.
+     * <p>
+     * An entry found by {@code getEntry} on a top level environment is still the result of the same lookup as long
+     * as this stamp is unchanged.
+     *
+     * @return the current stamp
+     */
+    public static int namesVersion() {
+        return namesVersion;
+    }
+
+    protected static void namesChanged() {
+        namesVersion++;
     }
 
     public Memory getMemory() {
         return memory;
     }
 
+    public void setOwnerPtr(Reference ownerPtr) {
+        this.ownerPtr = ownerPtr;
+    }
+
+    /**
+     * Notifies the memory that {@code value} is stored in this environment.
+     *
+     * @param value the stored value
+     */
+    void recordWrite(SplElement value) {
+        if (value instanceof Reference) memory.recordWrite(this, ownerPtr, value);
+    }
+
     public void defineFunction(String name, Reference funcPtr, LineFilePos lineFile) {
         defineVarAndSet(name, funcPtr, lineFile);
     }
@@ -83,24 +153,88 @@ public abstract class Environment {
         return globalEnv.hasException();
     }
 
+    /**
+     * Throws the interruption exception to the global environment if another thread requested an interruption, so
+     * that it is not caught by try statements.
+     *
+     * @return whether this environment or the global environment has an exception
+     */
+    public boolean pollInterrupt() {
+        return globalEnv.pollInterrupt() || hasException();
+    }
+
+    /**
+     * @return the environment whose {@code interrupted()} decides whether this environment is interrupted
+     */
+    protected Environment interruptHolder() {
+        return this;
+    }
+
+    /**
+     * @return the environment whose {@code hasException()} decides whether this environment has an exception
+     */
+    protected Environment exceptionHolder() {
+        return this;
+    }
+
     public Set<SplElement> attributes() {
         Set<SplElement> set = new HashSet<>();
-        for (VarEntry entry : variables.values()) {
-            set.add(entry.getValue());
-        }
+        visitValues(value -> {
+            set.add(value);
+            return false;
+        });
         return set;
     }
 
+    /**
+     * Passes the value of each variable in this environment to {@code visitor}, without creating any collection.
+     *
+     * @param visitor the visitor
+     * @return {@code true} if the visitor stopped the iteration
+     */
+    public boolean visitValues(ValueVisitor visitor) {
+        if (slots != null) {
+            for (VarEntry entry : slots) {
+                if (entry != null && visitor.visit(entry.getValue())) return true;
+            }
+        }
+        if (variables != null) {
+            for (VarEntry entry : variables.values()) {
+                if (visitor.visit(entry.getValue())) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that this environment is visited by the garbage collection with {@code stamp}.
+     *
+     * @param stamp stamp of the running collection
+     * @return {@code true} if this environment was not yet visited by this collection
+     */
+    public boolean visitByGc(int stamp) {
+        int old = gcStamp;
+        return old != stamp && GC_STAMP.compareAndSet(this, old, stamp);
+    }
+
     public Map<String, SplElement> keyAttributes() {
         Map<String, SplElement> attrs = new HashMap<>();
-        for (Map.Entry<String, VarEntry> entry : variables.entrySet()) {
-            attrs.put(entry.getKey(), entry.getValue().getValue());
+        if (slots != null) {
+            String[] slotNames = scope.names();
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null) attrs.put(slotNames[i], slots[i].getValue());
+            }
+        }
+        if (variables != null) {
+            for (Map.Entry<String, VarEntry> entry : variables.entrySet()) {
+                attrs.put(entry.getKey(), entry.getValue().getValue());
+            }
         }
         return attrs;
     }
 
     public Set<String> names() {
-        return new HashSet<>(variables.keySet());
+        return keyAttributes().keySet();
     }
 
     public void defineVar(String name, LineFilePos lineFile) {
@@ -109,7 +243,7 @@ public abstract class Environment {
             return;
         }
 
-        variables.put(name, VarEntry.varEntry());
+        localPut(name, VarEntry.varEntry(this));
     }
 
     public void defineVarAndSet(String name, SplElement value, LineFilePos lineFile) {
@@ -118,7 +252,7 @@ public abstract class Environment {
             return;
         }
 
-        variables.put(name, VarEntry.varEntry(value));
+        localPut(name, VarEntry.varEntry(this, value));
     }
 
     public void defineConst(String name, LineFilePos lineFile) {
@@ -128,7 +262,7 @@ public abstract class Environment {
         }
 
         // not using 'defaultValue' because 'null' is the mark of unassigned constant
-        variables.put(name, VarEntry.constEntry());
+        localPut(name, VarEntry.constEntry(this));
     }
 
     public void defineConstAndSet(String name, SplElement value, LineFilePos lineFile) {
@@ -137,7 +271,20 @@ public abstract class Environment {
             return;
         }
 
-        variables.put(name, VarEntry.constEntry(value));
+        localPut(name, VarEntry.constEntry(this, value));
+    }
+
+    /**
+     * Defines the name at {@code slot} of this environment's scope and sets its value.
+     * <p>
+     * This is used to bind arguments. The caller ensures that the name is not defined yet.
+     *
+     * @param slot     the slot index in {@code getScope()}
+     * @param value    the value
+     * @param constant whether the name is a constant
+     */
+    public void defineSlotAndSet(int slot, SplElement value, boolean constant) {
+        slots[slot] = constant ? VarEntry.constEntry(this, value) : VarEntry.varEntry(this, value);
     }
 
     public void setVar(String name, SplElement value, LineFilePos lineFile) {
@@ -147,14 +294,46 @@ public abstract class Environment {
             return;
         }
 
+        setEntry(name, entry, value, lineFile);
+    }
+
+    /**
+     * Assigns to an entry that has already been looked up.
+     *
+     * @param name     the name of the entry, used in error messages
+     * @param entry    the entry
+     * @param value    the new value
+     * @param lineFile the line file
+     */
+    public void setEntry(String name, VarEntry entry, SplElement value, LineFilePos lineFile) {
         if (entry.constant && entry.getValue() != Undefined.UNDEFINED) {
             throwNameError("Constant '" + name + "' is not assignable.", lineFile);
             return;
         }
+        if (entry.shared) {
+            setShared(name, value, lineFile);
+            return;
+        }
 
         entry.setValue(value);
     }
 
+    /**
+     * Assigns to a name whose entry found from this environment is shared, by defining a new entry in the
+     * environment where the shared entry is found.
+     * <p>
+     * This method follows the same path as {@code innerGet}.
+     *
+     * @param name     the name
+     * @param value    the new value
+     * @param lineFile the line file
+     */
+    protected void setShared(String name, SplElement value, LineFilePos lineFile) {
+        if (outer == null)
+            throw new EnvironmentError("Unexpected error: shared entry '" + name + "' not found.", lineFile);
+        outer.setShared(name, value, lineFile);
+    }
+
     public SplElement get(String name, LineFilePos lineFile) {
         VarEntry se = innerGet(name, true);
         if (se == null) {
@@ -169,6 +348,25 @@ public abstract class Environment {
         return innerGet(name, true) != null;
     }
 
+    /**
+     * @param name the name
+     * @return the entry of the name visible from this environment, or {@code null} if not found
+     */
+    public VarEntry getEntry(String name) {
+        return innerGet(name, true);
+    }
+
+    /**
+     * @return {@code true} if this environment is a global or module environment
+     */
+    public boolean isTopLevel() {
+        return false;
+    }
+
+    protected boolean hasNamespaces() {
+        return false;
+    }
+
     /**
      * Get a value stored by name.
      * <p>
@@ -179,7 +377,7 @@ public abstract class Environment {
      * @return the value
      */
     protected VarEntry innerGet(String name, boolean isFirst) {
-        VarEntry tv = variables.get(name);
+        VarEntry tv = localGet(name);
 
         if (tv == null) {
             if (outer != null) {
@@ -193,7 +391,7 @@ public abstract class Environment {
     }
 
     protected VarEntry localInnerGet(String name) {
-        VarEntry tv = variables.get(name);
+        VarEntry tv = localGet(name);
         if (tv == null) {
             if (outer != null && outer.isSub()) {
                 tv = outer.localInnerGet(name);
@@ -202,6 +400,96 @@ public abstract class Environment {
         return tv;
     }
 
+    /**
+     * Returns the entry of a resolved name, using the coordinates computed by {@code spl.parser.Resolver}.
+     * <p>
+     * The lookup only succeeds if every environment on the way has the expected static layout, and none of them
+     * has a dynamically defined entry of the same name. Otherwise, the caller must fall back to {@code get}.
+     *
+     * @param name     the name
+     * @param useScope the scope where the name is used
+     * @param depth    number of scopes between the use and the declaration
+     * @param slot     the slot of the name in the declaring scope
+     * @return the entry, or {@code null} if the name cannot be found by its coordinates
+     */
+    public VarEntry slotEntry(String name, Scope useScope, int depth, int slot) {
+        if (scope != useScope) return null;
+        Environment env = this;
+        Scope expected = useScope;
+        for (int i = 0; i < depth; i++) {
+            if (env.variables != null && env.variables.containsKey(name)) return null;
+            env = env.outer;
+            expected = expected.getParent();
+            if (env == null || env.scope != expected) return null;
+        }
+        return env.slots[slot];
+    }
+
+    /**
+     * Returns the top level environment where a name, which is not declared in any enclosing scope, is looked up.
+     * <p>
+     * Similar to {@code slotEntry}, this method returns {@code null} if any environment on the way does not have
+     * the expected layout, or may change the result of looking up this name.
+     *
+     * @param name     the name
+     * @param useScope the scope where the name is used
+     * @param depth    number of scopes between the use and the top level
+     * @return the top level environment, or {@code null} if the name must be looked up from this environment
+     */
+    public Environment topLevelEnv(String name, Scope useScope, int depth) {
+        if (scope != useScope) return null;
+        Environment env = this;
+        Scope expected = useScope;
+        for (int i = 0; i < depth; i++) {
+            if (env.hasNamespaces() || (env.variables != null && env.variables.containsKey(name))) return null;
+            env = env.outer;
+            expected = expected.getParent();
+            if (env == null || env.scope != expected) return null;
+        }
+        return env.isTopLevel() ? env : null;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @param slot the slot index in {@code getScope()}
+     * @return the entry at {@code slot}, or {@code null} if the name is not defined yet
+     */
+    protected VarEntry slotAt(int slot) {
+        return slots[slot];
+    }
+
+    protected VarEntry localGet(String name) {
+        if (scope != null) {
+            int slot = scope.slotOf(name);
+            if (slot >= 0) return slots[slot];
+        }
+        return variables == null ? null : variables.get(name);
+    }
+
+    protected void localPut(String name, VarEntry entry) {
+        if (scope != null) {
+            int slot = scope.slotOf(name);
+            if (slot >= 0) {
+                slots[slot] = entry;
+                return;
+            }
+        }
+        if (variables == null) variables = new HashMap<>();
+        variables.put(name, entry);
+        if (isTopLevel()) namesChanged();
+    }
+
+    /**
+     * Removes all names defined in this environment.
+     */
+    protected void clearNames() {
+        if (slots != null) Arrays.fill(slots, null);
+        if (variables != null) variables.clear();
+    }
+
     protected final boolean localHasName(String name) {
         return localInnerGet(name) != null;
     }
@@ -234,4 +522,14 @@ public abstract class Environment {
     public int hashCode() {
         return envId;
     }
+
+    @FunctionalInterface
+    public interface ValueVisitor {
+
+        /**
+         * @param value value of a variable
+         * @return {@code true} to stop visiting the remaining values
+         */
+        boolean visit(SplElement value);
+    }
 }
@@ -13,7 +13,12 @@ public class FunctionEnvironment extends MainAbstractEnvironment {
     private SplElement returnValue;
 
     public FunctionEnvironment(Environment definitionEnv, Environment callingEnv, String definedName) {
-        super(definitionEnv.memory, definitionEnv);
+        this(definitionEnv, callingEnv, definedName, null);
+    }
+
+    public FunctionEnvironment(Environment definitionEnv, Environment callingEnv, String definedName,
+                               Scope scope) {
+        super(definitionEnv.memory, definitionEnv, scope);
 
         this.callingEnv = callingEnv;
         this.definedName = definedName;
@@ -2,6 +2,9 @@ package spl.interpreter.env;
 
 import spl.interpreter.Memory;
 import spl.interpreter.primitives.Reference;
+import spl.interpreter.splObjects.SplClass;
+import spl.util.Constants;
+import spl.util.LineFilePos;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -17,6 +20,19 @@ public class GlobalEnvironment extends MainAbstractEnvironment {
 
     protected Reference exceptionInsPtr;
 
+    /**
+     * Whether another thread requested to interrupt the running code, which is checked at loop back-edges and calls.
+     */
+    private volatile boolean interruptRequested;
+
+    /**
+     * Ids of the built-in classes defined in lang, {@code -1} if lang is not imported.
+     */
+    private int objectClassId = -1;
+    private int stringClassId = -1;
+    private int wrapperClassId = -1;
+    private int rangeIteratorClassId = -1;
+
     public GlobalEnvironment(Memory memory) {
         super(memory, null);
     }
@@ -29,6 +45,34 @@ public class GlobalEnvironment extends MainAbstractEnvironment {
         return exceptionInsPtr != null;
     }
 
+    /**
+     * Requests to interrupt the running code, from any thread.
+     */
+    public void requestInterrupt() {
+        interruptRequested = true;
+    }
+
+    /**
+     * @return whether an interruption was requested and not polled yet
+     */
+    public boolean isInterruptRequested() {
+        return interruptRequested;
+    }
+
+    @Override
+    public boolean pollInterrupt() {
+        if (interruptRequested) {
+            interruptRequested = false;
+            throwException((Reference) get(Constants.INTERRUPTION_INS, LineFilePos.LF_INTERPRETER));
+        }
+        return exceptionInsPtr != null;
+    }
+
+    @Override
+    public boolean isTopLevel() {
+        return true;
+    }
+
     @Override
     public boolean interrupted() {
         return false;
@@ -45,6 +89,40 @@ public class GlobalEnvironment extends MainAbstractEnvironment {
         exceptionInsPtr = null;
     }
 
+    /**
+     * Records the ids of the built-in classes defined in lang, so that they are never confused with user classes of
+     * the same names.
+     *
+     * @param langEnv the environment of the lang module
+     */
+    public void setLangClasses(ModuleEnvironment langEnv) {
+        objectClassId = langClassId(Constants.OBJECT_CLASS, langEnv);
+        stringClassId = langClassId(Constants.STRING_CLASS, langEnv);
+        wrapperClassId = langClassId(Constants.WRAPPER, langEnv);
+        rangeIteratorClassId = langClassId(Constants.RANGE_ITERATOR_CLASS, langEnv);
+    }
+
+    private static int langClassId(String className, ModuleEnvironment langEnv) {
+        SplClass clazz = langEnv.getMemory().get((Reference) langEnv.get(className, LineFilePos.LF_INTERPRETER));
+        return clazz.classId;
+    }
+
+    public int getObjectClassId() {
+        return objectClassId;
+    }
+
+    public int getStringClassId() {
+        return stringClassId;
+    }
+
+    public int getWrapperClassId() {
+        return wrapperClassId;
+    }
+
+    public int getRangeIteratorClassId() {
+        return rangeIteratorClassId;
+    }
+
     @Override
     public Reference getImportedModulePtr(String modulePath) {
         return importedModules.get(modulePath);
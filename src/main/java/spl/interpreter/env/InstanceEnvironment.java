@@ -3,25 +3,60 @@ package spl.interpreter.env;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
-import spl.interpreter.splObjects.Instance;
+import spl.interpreter.splObjects.SplClass;
 import spl.util.Constants;
 import spl.util.LineFilePos;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * The environment of an instance, at one level of its class hierarchy.
+ * <p>
+ * Fields are stored in slots laid out by the shape of the class. Methods are not stored in this environment, they
+ * are found in the method entries of the class, which are shared by all instances of the class.
+ * <p>
+ * All environments of an instance share an array of the environments at each level, so that a name is looked up
+ * directly at the levels listed for it in the level table of the instance's class, instead of following the
+ * {@code super} chain.
+ */
 public class InstanceEnvironment extends MainAbstractEnvironment {
-    private final String className;
-    private final Map<String, VarEntry> generics = new HashMap<>();
+    private final SplClass clazz;
+    /**
+     * Environments of the instance at each level, the first is the environment of the instance's class.
+     */
+    private final InstanceEnvironment[] levels;
+    /**
+     * Index of this environment in {@code levels}.
+     */
+    private final int level;
+    /**
+     * Generics of this instance, or {@code null} if the class has no templates.
+     */
+    private Map<String, VarEntry> generics;
+    /**
+     * Whether methods of the class are visible, which they are not while fields are being initialized.
+     */
+    private boolean methodsDefined;
 
-    public InstanceEnvironment(String className, Environment definitionEnv) {
-        super(definitionEnv.getMemory(), definitionEnv);
+    public InstanceEnvironment(SplClass clazz, InstanceEnvironment[] levels, int level) {
+        super(clazz.getDefinitionEnv().getMemory(), clazz.getDefinitionEnv(), clazz.getShape());
 
-        this.className = className;
+        this.clazz = clazz;
+        this.levels = levels;
+        this.level = level;
+        levels[level] = this;
     }
 
     public void directDefineConstAndSet(String name, SplElement value) {
-        variables.put(name, VarEntry.constEntry(value));
+        localPut(name, VarEntry.constEntry(this, value));
+    }
+
+    /**
+     * Makes methods of the class visible from this environment, after fields are initialized.
+     */
+    public void defineMethods() {
+        methodsDefined = true;
     }
 
     @Override
@@ -38,24 +73,97 @@ public class InstanceEnvironment extends MainAbstractEnvironment {
     }
 
     private VarEntry searchSuper(String name) {
-        VarEntry instanceEntry = variables.get(Constants.INSTANCE_NAME);
-        if (instanceEntry == null) {
+        if (localGet(Constants.INSTANCE_NAME) == null) {
             throw new EnvironmentError("Unexpected error: '" + Constants.INSTANCE_NAME + "' not in scope.");
         }
-        VarEntry varEntry = generics.get(name);
-        if (varEntry != null) {
-            return varEntry;
+        int[] nameLevels = levels[0].clazz.getLevelTable().get(name);
+        if (nameLevels == null) return null;
+        for (int lv : nameLevels) {
+            if (lv < level) continue;
+            // superclass levels are not created yet while this instance is being created
+            if (levels[lv] == null) return null;
+            VarEntry varEntry = levels[lv].levelEntry(name);
+            if (varEntry != null) return varEntry;
         }
+        return null;
+    }
 
-        varEntry = variables.get(name);
-        if (varEntry == null) {
-            VarEntry superTv = variables.get(Constants.SUPER);
-            if (superTv == null) return null;
-            else {
-                Instance supIns = getMemory().get((Reference) superTv.getValue());
-                return supIns.getEnv().searchSuper(name);
-            }
-        } else return varEntry;
+    private VarEntry levelEntry(String name) {
+        VarEntry varEntry = getGeneric(name);
+        if (varEntry == null) varEntry = localGet(name);
+        if (varEntry == null) varEntry = methodEntry(name);
+        return varEntry;
+    }
+
+    private VarEntry methodEntry(String name) {
+        return methodsDefined ? clazz.getMethodEntries().get(name) : null;
+    }
+
+    /**
+     * @param classId id of a class in the mro of the instance
+     * @return the environment of the instance at the level of that class, at or after this level, or {@code null}
+     * if not found
+     */
+    public InstanceEnvironment levelOfClass(int classId) {
+        for (int lv = level; lv < levels.length && levels[lv] != null; lv++) {
+            if (levels[lv].clazz.classId == classId) return levels[lv];
+        }
+        return null;
+    }
+
+    /**
+     * Returns where an attribute is found from this environment, which is the same for all instances of the class
+     * once they are created.
+     * <p>
+     * Only fields and methods are located. Generics are stored per instance, and a method assigned in this
+     * instance is not shared.
+     *
+     * @param name the attribute name
+     * @return the location, or {@code null} if the attribute cannot be located
+     */
+    public AttributeLocation locate(String name) {
+        if (level != 0 || !methodsDefined) return null;
+        int[] nameLevels = clazz.getLevelTable().get(name);
+        if (nameLevels == null) return null;
+        InstanceEnvironment env = levels[nameLevels[0]];
+        if (env.getGeneric(name) != null) return null;
+
+        int slot = env.getScope().slotOf(name);
+        if (slot >= 0) {
+            return env.slotAt(slot) == null ? null : new AttributeLocation(name, nameLevels[0], slot, null);
+        }
+        if (env.variables != null && env.variables.containsKey(name)) return null;
+        VarEntry method = env.clazz.getMethodEntries().get(name);
+        return method == null ? null : new AttributeLocation(name, nameLevels[0], -1, method);
+    }
+
+    /**
+     * @param location a location returned by {@code locate} of an instance of the same class
+     * @return the entry at {@code location}, or {@code null} if it must be looked up by name
+     */
+    public VarEntry entryAt(AttributeLocation location) {
+        InstanceEnvironment env = levels[location.level];
+        if (location.method == null) return env.slotAt(location.slot);
+        if (env.variables != null && env.variables.containsKey(location.name)) return null;
+        return location.method;
+    }
+
+    /**
+     * @return the id of the class whose attribute locations apply to this environment, or {@code -1} if this
+     * environment is not the first level of a created instance
+     */
+    public int locationClassId() {
+        return level == 0 && methodsDefined ? clazz.classId : -1;
+    }
+
+    @Override
+    protected void setShared(String name, SplElement value, LineFilePos lineFile) {
+        if (localGet(name) == null && methodEntry(name) != null) {
+            localPut(name, VarEntry.varEntry(this, value));
+            return;
+        }
+        if (level + 1 < levels.length && levels[level + 1] != null) levels[level + 1].setShared(name, value, lineFile);
+        else super.setShared(name, value, lineFile);
     }
 
     public void defineGeneric(String name, Reference value, LineFilePos lineFilePos) {
@@ -69,23 +177,66 @@ public class InstanceEnvironment extends MainAbstractEnvironment {
             );
             return;
         }
-        generics.put(name, VarEntry.constEntry(value));
+        if (generics == null) generics = new HashMap<>();
+        generics.put(name, VarEntry.constEntry(this, value));
     }
 
     protected VarEntry getGeneric(String name) {  // nullable
-        return generics.get(name);
+        return generics == null ? null : generics.get(name);
+    }
+
+    @Override
+    public boolean visitValues(ValueVisitor visitor) {
+        if (super.visitValues(visitor)) return true;
+        if (generics != null) {
+            for (VarEntry entry : generics.values()) {
+                if (visitor.visit(entry.getValue())) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, SplElement> keyAttributes() {
+        Map<String, SplElement> attrs = super.keyAttributes();
+        if (methodsDefined) {
+            for (Map.Entry<String, VarEntry> entry : clazz.getMethodEntries().entrySet()) {
+                attrs.putIfAbsent(entry.getKey(), entry.getValue().getValue());
+            }
+        }
+        return attrs;
     }
 
     public Map<String, SplElement> getGenericsMap() {
         Map<String, SplElement> map = new HashMap<>();
-        for (Map.Entry<String, VarEntry> entry : generics.entrySet()) {
-            map.put(entry.getKey(), entry.getValue().getValue());
+        if (generics != null) {
+            for (Map.Entry<String, VarEntry> entry : generics.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().getValue());
+            }
         }
         return map;
     }
 
     @Override
     public String toString() {
-        return "InstanceEnv of '" + className + "'";
+        return "InstanceEnv of '" + clazz.getClassName() + "'";
+    }
+
+    /**
+     * Where an attribute is found in the environments of instances of a class, either a field slot at some level
+     * or a method entry of the class at some level.
+     */
+    public static final class AttributeLocation {
+        private final String name;
+        private final int level;
+        private final int slot;
+        private final VarEntry method;
+
+        private AttributeLocation(String name, int level, int slot, VarEntry method) {
+            this.name = name;
+            this.level = level;
+            this.slot = slot;
+            this.method = method;
+        }
     }
 }
@@ -11,9 +11,18 @@ public class LoopEnvironment extends SubAbstractEnvironment {
         super(outer);
     }
 
+    public LoopEnvironment(Environment outer, Scope scope) {
+        super(outer, scope);
+    }
+
     @Override
     public boolean interrupted() {
-        return broken || paused || outer.interrupted();
+        return broken || paused || outerInterruptHolder.interrupted();
+    }
+
+    @Override
+    protected Environment interruptHolder() {
+        return this;
     }
 
     @Override
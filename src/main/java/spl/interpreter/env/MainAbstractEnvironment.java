@@ -11,12 +11,16 @@ import java.util.Set;
 
 public abstract class MainAbstractEnvironment extends Environment {
 
-    protected Set<ModuleEnvironment> namespaces = new HashSet<>();
+    protected Set<ModuleEnvironment> namespaces;  // created on demand
 
     public MainAbstractEnvironment(Memory memory, Environment outer) {
         super(memory, outer);
     }
 
+    public MainAbstractEnvironment(Memory memory, Environment outer, Scope scope) {
+        super(memory, outer, scope);
+    }
+
     @Override
     public boolean isSub() {
         return false;
@@ -31,19 +35,28 @@ public abstract class MainAbstractEnvironment extends Environment {
 
     @Override
     public void addNamespace(ModuleEnvironment moduleEnvironment) {
+        if (namespaces == null) namespaces = new HashSet<>();
         namespaces.add(moduleEnvironment);
+        namesChanged();
     }
 
     @Override
     protected VarEntry searchInNamespaces(String name) {
-        for (ModuleEnvironment me : namespaces) {
-            VarEntry tv = me.variables.get(name);
-            if (tv != null) return tv;
+        if (namespaces != null) {
+            for (ModuleEnvironment me : namespaces) {
+                VarEntry tv = me.variables.get(name);
+                if (tv != null) return tv;
+            }
         }
         if (outer == null) return null;
         else return outer.searchInNamespaces(name);
     }
 
+    @Override
+    protected boolean hasNamespaces() {
+        return namespaces != null;
+    }
+
     @Override
     protected void setInNamespaces(String name, SplElement typeValue) {
 //        System.out.println(12312313);
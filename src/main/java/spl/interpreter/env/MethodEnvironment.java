@@ -4,7 +4,6 @@ import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splObjects.Instance;
-import spl.interpreter.splObjects.SplClass;
 import spl.util.Constants;
 import spl.util.LineFilePos;
 
@@ -22,24 +21,15 @@ public class MethodEnvironment extends FunctionEnvironment {
     }
 
     private VarEntry searchGenerics(String name, Instance someIns) {
-        VarEntry instanceEntry = getInstanceEntry(someIns);
-        if (instanceEntry == null) return null;
-        Instance targetIns = getMemory().get((Reference) instanceEntry.getValue());
-        return targetIns.getEnv().getGeneric(name);
+        InstanceEnvironment levelEnv = someIns.getEnv().levelOfClass(methodDefClassId);
+        if (levelEnv == null) return null;
+        return levelEnv.getGeneric(name);
     }
 
     private VarEntry getInstanceEntry(Instance someIns) {
-        SplClass thisClass = getMemory().get(someIns.getClazzPtr());
-        if (thisClass.classId == methodDefClassId) {
-            return someIns.getEnv().innerGet(Constants.INSTANCE_NAME, false);
-        } else {
-            VarEntry superTv = someIns.getEnv().innerGet(Constants.SUPER, false);
-            if (superTv == null) return null;
-            else {
-                Instance supIns = getMemory().get((Reference) superTv.getValue());
-                return getInstanceEntry(supIns);
-            }
-        }
+        InstanceEnvironment levelEnv = someIns.getEnv().levelOfClass(methodDefClassId);
+        if (levelEnv == null) return null;
+        return levelEnv.localGet(Constants.INSTANCE_NAME);
     }
 
     @Override
@@ -70,4 +60,18 @@ public class MethodEnvironment extends FunctionEnvironment {
 
         return super.innerGet(name, isFirst);
     }
+
+    @Override
+    protected void setShared(String name, SplElement value, LineFilePos lineFile) {
+        SplElement thisValue = variables.get(Constants.THIS).getValue();
+        if (thisValue instanceof Reference && !variables.containsKey(name)) {
+            Instance thisIns = getMemory().get((Reference) thisValue);
+            VarEntry entry = thisIns.getEnv().innerGet(name, false);
+            if (entry != null && entry.shared) {
+                thisIns.getEnv().setShared(name, value, lineFile);
+                return;
+            }
+        }
+        super.setShared(name, value, lineFile);
+    }
 }
@@ -10,6 +10,11 @@ public class ModuleEnvironment extends MainAbstractEnvironment {
         this.moduleName = moduleName;
     }
 
+    @Override
+    public boolean isTopLevel() {
+        return true;
+    }
+
     @Override
     public boolean interrupted() {
         return false;
@@ -0,0 +1,87 @@
+package spl.interpreter.env;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The static layout of an environment, computed by {@code spl.parser.Resolver} before evaluation.
+ * <p>
+ * Each name declared in a lexical block is given a slot index, so that environments created for this block store
+ * these names in an array instead of a hash map.
+ */
+public class Scope {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    /**
+     * Whether the block of this scope can be evaluated in the enclosing environment if it declares nothing.
+     */
+    private final boolean elidable;
+    /**
+     * The lexically enclosing scope, or {@code null} if the enclosing environment has no static layout.
+     */
+    private Scope parent;
+    /**
+     * Whether this block contains nodes that the resolver does not walk into, which may define names.
+     */
+    private boolean dynamic;
+
+    public Scope(boolean elidable) {
+        this.elidable = elidable;
+    }
+
+    public Scope getParent() {
+        return parent;
+    }
+
+    public void setParent(Scope parent) {
+        this.parent = parent;
+    }
+
+    public void markDynamic() {
+        dynamic = true;
+    }
+
+    /**
+     * @return {@code true} if no environment is created for this scope, which is only known after all names are
+     * declared
+     */
+    public boolean isElided() {
+        return elidable && !dynamic && slots.isEmpty();
+    }
+
+    /**
+     * Declares a name in this scope, does nothing if the name is already declared.
+     *
+     * @param name the declared name
+     * @return the slot index of this name
+     */
+    public int declare(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * @param name the name
+     * @return the slot index of this name, or {@code -1} if this name is not declared in this scope
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    String[] names() {
+        String[] names = new String[slots.size()];
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+        return names;
+    }
+}
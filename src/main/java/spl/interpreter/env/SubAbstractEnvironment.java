@@ -5,8 +5,24 @@ import spl.util.LineFilePos;
 
 public abstract class SubAbstractEnvironment extends Environment {
 
+    /**
+     * Holders of the interruption and exception states of {@code outer}.
+     * <p>
+     * Both states are checked before every node evaluation. Sub environments which only ask their outer environments
+     * ask these holders directly, instead of walking the chain of nested blocks each time.
+     */
+    protected final Environment outerInterruptHolder;
+    protected final Environment outerExceptionHolder;
+
     public SubAbstractEnvironment(Environment outer) {
-        super(outer.memory, outer);
+        this(outer, null);
+    }
+
+    public SubAbstractEnvironment(Environment outer, Scope scope) {
+        super(outer.memory, outer, scope);
+
+        this.outerInterruptHolder = outer.interruptHolder();
+        this.outerExceptionHolder = outer.exceptionHolder();
     }
 
     @Override
@@ -19,6 +35,21 @@ public abstract class SubAbstractEnvironment extends Environment {
         outer.setReturn(typeValue, lineFile);
     }
 
+    @Override
+    public boolean hasException() {
+        return outerExceptionHolder.hasException();
+    }
+
+    @Override
+    protected Environment interruptHolder() {
+        return outerInterruptHolder;
+    }
+
+    @Override
+    protected Environment exceptionHolder() {
+        return outerExceptionHolder;
+    }
+
     @Override
     public void addNamespace(ModuleEnvironment moduleEnvironment) {
         throw new EnvironmentError();
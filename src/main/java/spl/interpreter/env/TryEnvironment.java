@@ -11,6 +11,10 @@ public class TryEnvironment extends SubAbstractEnvironment {
         super(outer);
     }
 
+    public TryEnvironment(Environment outer, Scope scope) {
+        super(outer, scope);
+    }
+
     @Override
     public void throwException(Reference exceptionPtr) {
         this.exceptionPtr = exceptionPtr;
@@ -25,9 +29,14 @@ public class TryEnvironment extends SubAbstractEnvironment {
         return exceptionPtr != null;
     }
 
+    @Override
+    protected Environment exceptionHolder() {
+        return this;
+    }
+
     @Override
     public boolean interrupted() {
-        return outer.interrupted();
+        return outerInterruptHolder.interrupted();
     }
 
     @Override
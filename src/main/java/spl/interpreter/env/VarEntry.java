@@ -7,26 +7,47 @@ public class VarEntry {
 
     private SplElement value;
     public final boolean constant;
+    /**
+     * Whether this entry is shared by environments, for example the methods of a class shared by all its instances.
+     * <p>
+     * Assigning to a shared entry defines a new entry in the environment that found it.
+     */
+    public final boolean shared;
+    /**
+     * The environment where this entry is defined.
+     */
+    private final Environment env;
 
-    public static VarEntry varEntry(SplElement value) {
-        return new VarEntry(value, false);
+    public static VarEntry varEntry(Environment env, SplElement value) {
+        return new VarEntry(env, value, false);
     }
 
-    public static VarEntry varEntry() {
-        return new VarEntry(Undefined.UNDEFINED, false);
+    public static VarEntry varEntry(Environment env) {
+        return new VarEntry(env, Undefined.UNDEFINED, false);
     }
 
-    public static VarEntry constEntry(SplElement value) {
-        return new VarEntry(value, true);
+    public static VarEntry constEntry(Environment env, SplElement value) {
+        return new VarEntry(env, value, true);
     }
 
-    public static VarEntry constEntry() {
-        return new VarEntry(Undefined.UNDEFINED, true);
+    public static VarEntry constEntry(Environment env) {
+        return new VarEntry(env, Undefined.UNDEFINED, true);
     }
 
-    private VarEntry(SplElement value, boolean constant) {
+    public static VarEntry sharedEntry(Environment env, SplElement value) {
+        return new VarEntry(env, value, false, true);
+    }
+
+    private VarEntry(Environment env, SplElement value, boolean constant) {
+        this(env, value, constant, false);
+    }
+
+    private VarEntry(Environment env, SplElement value, boolean constant, boolean shared) {
+        this.env = env;
         this.value = value;
         this.constant = constant;
+        this.shared = shared;
+        env.recordWrite(value);
     }
 
     public SplElement getValue() {
@@ -35,6 +56,7 @@ public class VarEntry {
 
     public void setValue(SplElement value) {
         this.value = value;
+        env.recordWrite(value);
     }
 
     @Override
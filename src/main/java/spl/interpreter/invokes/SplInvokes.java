@@ -106,9 +106,11 @@ public class SplInvokes extends NativeObject {
         Reference stringPtr = (Reference) environment.get(Constants.STRING_CLASS, lineFile);
 
         String[] resArr = new String[argc];
+        int rootsMark = environment.getMemory().addTempArgs(args);
         for (int i = 0; i < argc; ++i) {
             resArr[i] = getString(args.positionalArgs.get(i), environment, lineFile, stringPtr);
         }
+        environment.getMemory().popTempRoots(rootsMark);
         return String.join(", ", resArr);
     }
 
@@ -169,18 +171,19 @@ public class SplInvokes extends NativeObject {
                     return splStringToJavaString(strIns, environment, lineFile);
                 }
             } else if (object instanceof SplArray) {
-                return arrayToString(ptr.getPtr(), (SplArray) object, environment, stringPtr, lineFile);
+                return arrayToString(ptr, (SplArray) object, environment, stringPtr, lineFile);
             } else {
                 return object.toString() + "@" + ptr.getPtr();
             }
         }
     }
 
-    private static String arrayToString(int arrayAddr, SplArray array, Environment env, Reference stringPtr,
+    private static String arrayToString(Reference arrayPtr, SplArray array, Environment env, Reference stringPtr,
                                         LineFilePos lineFile) {
         StringBuilder builder = new StringBuilder("'[");
         for (int i = 0; i < array.length.value; i++) {
-            SplElement e = env.getMemory().getPrimitive(arrayAddr + i + 1);
+            // the array may be moved by gc while calling '__repr__' of its elements
+            SplElement e = SplArray.getItem(arrayPtr, i, env.getMemory());
             builder.append(getRepr(e, env, lineFile, stringPtr));
             if (i < array.length.value - 1) builder.append(", ");
         }
@@ -260,7 +263,7 @@ public class SplInvokes extends NativeObject {
     @Accessible
     public SplElement clock(Arguments arguments, Environment environment, LineFilePos lineFile) {
         checkArgCount(arguments, 0, "clock", environment, lineFile);
-        return new Int(System.currentTimeMillis());
+        return Int.valueOf(System.currentTimeMillis());
     }
 
     @Accessible
@@ -272,6 +275,24 @@ public class SplInvokes extends NativeObject {
         return Reference.NULL;
     }
 
+    @Accessible
+    public SplElement minorGcCount(Arguments arguments, Environment environment, LineFilePos lineFile) {
+        checkArgCount(arguments, 0, "minorGcCount", environment, lineFile);
+        return Int.valueOf(environment.getMemory().getMinorGcCount());
+    }
+
+    @Accessible
+    public SplElement majorGcCount(Arguments arguments, Environment environment, LineFilePos lineFile) {
+        checkArgCount(arguments, 0, "majorGcCount", environment, lineFile);
+        return Int.valueOf(environment.getMemory().getMajorGcCount());
+    }
+
+    @Accessible
+    public SplElement heapSize(Arguments arguments, Environment environment, LineFilePos lineFile) {
+        checkArgCount(arguments, 0, "heapSize", environment, lineFile);
+        return Int.valueOf(environment.getMemory().getHeapSize());
+    }
+
     @Accessible
     public SplElement memoryView(Arguments arguments, Environment environment, LineFilePos lineFile) {
         checkArgCount(arguments, 0, "memoryView", environment, lineFile);
@@ -293,7 +314,7 @@ public class SplInvokes extends NativeObject {
                     "Invokes.id() takes a pointer as argument.",
                     lineFile);
 
-        return new Int(arg.intValue());
+        return Int.valueOf(arg.intValue());
     }
 
     @Accessible
@@ -488,12 +509,14 @@ public class SplInvokes extends NativeObject {
         List<String> sorted = new ArrayList<>(strings);
         Collections.sort(sorted);
 
+        int rootsMark = env.getMemory().addTempPtr(arrRef);
         int index = 0;
         for (String name : sorted) {
             Reference strRef = StringLiteral.createString(name.toCharArray(), env, lineFilePos);
             SplArray.setItemAtIndex(arrRef, index, strRef, env, lineFilePos);
             index++;
         }
+        env.getMemory().popTempRoots(rootsMark);
         return arrRef;
     }
 
@@ -585,7 +608,7 @@ public class SplInvokes extends NativeObject {
 
         SplFloat x = (SplFloat) arguments.getLine().get(0).evaluate(env);
         byte[] arr = Utilities.doubleToBytes(x.floatValue());
-        return new Int(Utilities.bytesToLong(arr));
+        return Int.valueOf(Utilities.bytesToLong(arr));
     }
 
     @Accessible
@@ -2,7 +2,19 @@ package spl.interpreter.primitives;
 
 public class Char extends SplElement {
 
-    public static final Char NULL_TERMINATOR = new Char('\0');
+    /**
+     * Chars below this are shared.
+     */
+    private static final int CACHE_HIGH = 256;
+    private static final Char[] CACHE = new Char[CACHE_HIGH];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Char((char) i);
+        }
+    }
+
+    public static final Char NULL_TERMINATOR = valueOf('\0');
 
     public final char value;
 
@@ -10,6 +22,14 @@ public class Char extends SplElement {
         this.value = value;
     }
 
+    /**
+     * Returns a {@code Char} of {@code value}, without allocating if the value is cached.
+     */
+    public static Char valueOf(char value) {
+        if (value < CACHE_HIGH) return CACHE[value];
+        return new Char(value);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
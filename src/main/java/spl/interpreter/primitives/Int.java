@@ -2,8 +2,21 @@ package spl.interpreter.primitives;
 
 public class Int extends SplElement {
 
-    public static final Int ZERO = new Int(0);
-    public static final Int NEG_ONE = new Int(-1);
+    /**
+     * Values in {@code [CACHE_LOW, CACHE_HIGH)} are shared, which covers most loop counters and indices.
+     */
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final Int[] CACHE = new Int[CACHE_HIGH - CACHE_LOW];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Int(i + CACHE_LOW);
+        }
+    }
+
+    public static final Int ZERO = valueOf(0);
+    public static final Int NEG_ONE = valueOf(-1);
 
     public final long value;
 
@@ -11,6 +24,14 @@ public class Int extends SplElement {
         this.value = value;
     }
 
+    /**
+     * Returns an {@code Int} of {@code value}, without allocating if the value is cached.
+     */
+    public static Int valueOf(long value) {
+        if (value >= CACHE_LOW && value < CACHE_HIGH) return CACHE[(int) value - CACHE_LOW];
+        return new Int(value);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
@@ -2,9 +2,16 @@ package spl.interpreter.primitives;
 
 import spl.interpreter.splErrors.NativeTypeError;
 
+/**
+ * A pointer to an object in memory.
+ * <p>
+ * The pointer is a handle that never changes during the lifetime of the object, even if the object is moved by gc.
+ * The current address of the object is looked up by {@code Memory.addressOf}. Therefore references are immutable,
+ * and any two references of a same handle are equal.
+ */
 public class Reference extends SplElement {
 
-    private int ptr;
+    private final int ptr;
 
     public static final Reference NULL = new Reference(0);
 
@@ -36,15 +43,6 @@ public class Reference extends SplElement {
         return ptr;
     }
 
-    /**
-     * This method should only be used by garbage collection system.
-     *
-     * @param ptr the new pointer
-     */
-    public void setPtr(int ptr) {
-        this.ptr = ptr;
-    }
-
     @Override
     public boolean booleanValue() {
         throw new NativeTypeError("Cannot convert pointer to boolean. ");
@@ -62,6 +60,6 @@ public class Reference extends SplElement {
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return ptr;
     }
 }
@@ -1,7 +1,18 @@
 package spl.interpreter.primitives;
 
 public class SplByte extends SplElement {
-    public static final SplByte ZERO = new SplByte((byte) 0);
+    /**
+     * All bytes are shared, indexed by their unsigned value.
+     */
+    private static final SplByte[] CACHE = new SplByte[256];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new SplByte((byte) i);
+        }
+    }
+
+    public static final SplByte ZERO = valueOf((byte) 0);
 
     public final byte value;
 
@@ -9,6 +20,13 @@ public class SplByte extends SplElement {
         this.value = value;
     }
 
+    /**
+     * Returns a {@code SplByte} of {@code value} without allocating.
+     */
+    public static SplByte valueOf(byte value) {
+        return CACHE[value & 0xff];
+    }
+
     @Override
     public int type() {
         return SplElement.BYTE;
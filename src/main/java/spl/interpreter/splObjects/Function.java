@@ -9,6 +9,7 @@ import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
 import spl.interpreter.splErrors.NativeError;
+import spl.jit.CompiledFunction;
 import spl.util.Accessible;
 import spl.util.Constants;
 import spl.util.LineFilePos;
@@ -19,6 +20,11 @@ import java.util.Map;
 
 public class Function extends UserFunction {
 
+    /**
+     * Number of calls after which the body is compiled to a jvm class, if the jit is enabled.
+     */
+    private static final int JIT_THRESHOLD = 1000;
+
     protected final BlockStmt body;
     protected final String definedName;
     private final StringLiteralRef docRef;
@@ -28,6 +34,8 @@ public class Function extends UserFunction {
     @Accessible
     Reference __annotations__;
     private String[] templates;
+    private int callCount;
+    private CompiledFunction compiled;  // nullable
 
     /**
      * Constructor for regular function.
@@ -41,6 +49,8 @@ public class Function extends UserFunction {
         this.definedName = definedName;
         this.docRef = docRef;
         this.__annotations__ = annotationRefs;
+
+        bindParamsBySlots(body.getScope());
     }
 
     public Node getBody() {
@@ -196,10 +206,32 @@ public class Function extends UserFunction {
 
     public SplElement call(EvaluatedArguments evaluatedArgs, Reference[] generics,
                            Environment callingEnv, LineFilePos argLineFile) {
-        FunctionEnvironment scope = new FunctionEnvironment(definitionEnv, callingEnv, definedName);
+        if (compiled != null) {
+            if (generics == null) {
+                SplElement result = compiled.call(evaluatedArgs, callingEnv);
+                if (result != null) return result;
+            }
+            if (compiled.isInvalidated()) compiled = null;
+        } else if (callCount < JIT_THRESHOLD && ++callCount == JIT_THRESHOLD && callingEnv.getMemory().isJit()) {
+            compiled = compile();
+        }
+        FunctionEnvironment scope = new FunctionEnvironment(definitionEnv, callingEnv, definedName, body.getScope());
         return callEssential(evaluatedArgs, generics, callingEnv, scope, argLineFile);
     }
 
+    /**
+     * @return the compiled body, or {@code null} if it cannot be compiled
+     */
+    private CompiledFunction compile() {
+        if (hasContract) return null;
+        String[] paramNames = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].unpackCount != 0) return null;
+            paramNames[i] = params[i].name;
+        }
+        return CompiledFunction.compile(this, body, paramNames, definitionEnv);
+    }
+
     protected SplElement callEssential(EvaluatedArguments evaluatedArgs,
                                        Reference[] generics,
                                        Environment callingEnv,
@@ -207,11 +239,13 @@ public class Function extends UserFunction {
                                        LineFilePos argLineFile) {
         checkValidArgCount(evaluatedArgs.positionalArgs.size(), evaluatedArgs.keywordArgs.size(),
                 definedName, callingEnv, argLineFile);
-        if (callingEnv.hasException()) return Undefined.ERROR;
+        if (callingEnv.pollInterrupt()) return Undefined.ERROR;
 
         if (!defineGenerics(generics, scope, callingEnv, lineFile)) return Undefined.ERROR;
 
+        int rootsMark = scope.getMemory().addTempArgs(evaluatedArgs);
         setArgs(evaluatedArgs, scope, callingEnv, argLineFile);
+        scope.getMemory().popTempRoots(rootsMark);
 
         scope.getMemory().pushStack(scope, argLineFile);
         body.evaluate(scope);
@@ -220,7 +254,9 @@ public class Function extends UserFunction {
         if (scope.hasException()) return Undefined.ERROR;
 
         SplElement rtnValue = scope.temporaryRemoveRtn();
+        if (rtnValue instanceof Reference) scope.getMemory().addTempPtr((Reference) rtnValue);
         checkRtnContract(rtnValue, scope, callingEnv, lineFile);
+        scope.getMemory().popTempRoots(rootsMark);
         scope.setReturn(rtnValue, lineFile);
 
         return rtnValue;
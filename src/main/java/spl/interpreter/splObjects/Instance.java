@@ -58,14 +58,18 @@ public class Instance extends SplObject {
         if (callingEnv.hasException()) return null;
         ArrayIterator<Reference> mroIterator = new ArrayIterator<>(clazz.getMroArray());
         if (mroIterator.next() != clazzPtr) throw new NativeError("Unexpected error.");
-        return createInstanceAndAllocate(mroIterator, clazzPtr, clazz, determinedGens, callingEnv, lineFile);
+        InstanceEnvironment[] levels = new InstanceEnvironment[clazz.getMroArray().length];
+        return createInstanceAndAllocate(mroIterator, clazzPtr, clazz, determinedGens, levels, 0, callingEnv,
+                lineFile);
     }
 
     public static InstanceAndPtr createInstanceWithInitCall(String className,
                                                             EvaluatedArguments evaluatedArgs,
                                                             Environment callingEnv,
                                                             LineFilePos lineFile) {
+        int rootsMark = callingEnv.getMemory().addTempArgs(evaluatedArgs);
         InstanceAndPtr iap = createInstanceAndAllocate(className, callingEnv, lineFile);
+        callingEnv.getMemory().popTempRoots(rootsMark);
         if (iap == null) return null;
         callInit(iap, evaluatedArgs, callingEnv, lineFile);
         return iap;
@@ -76,7 +80,9 @@ public class Instance extends SplObject {
                                                             EvaluatedArguments evaluatedArgs,
                                                             Environment callingEnv,
                                                             LineFilePos lineFile) {
+        int rootsMark = callingEnv.getMemory().addTempArgs(evaluatedArgs);
         InstanceAndPtr iap = createInstanceAndAllocate(clazzPtr, generics, callingEnv, lineFile);
+        callingEnv.getMemory().popTempRoots(rootsMark);
         if (iap == null) return null;
         callInit(iap, evaluatedArgs, callingEnv, lineFile);
         return iap;
@@ -89,6 +95,8 @@ public class Instance extends SplObject {
      * @param clazzPtr           pointer to the class to be processed
      * @param clazz              class to be processed
      * @param determinedGenerics generics that are already set
+     * @param levels             environments of the instance at each level of the mro
+     * @param level              the level of the class to be processed
      * @param callingEnv         env where the new instance is created, not the class definition env
      * @param lineFile           error traceback info of code where instance creation
      * @return the tuple of the newly created instance, and the a pointer point to that instance
@@ -97,16 +105,16 @@ public class Instance extends SplObject {
                                                             Reference clazzPtr,
                                                             SplClass clazz,
                                                             Map<String, Reference> determinedGenerics,
+                                                            InstanceEnvironment[] levels,
+                                                            int level,
                                                             Environment callingEnv,
                                                             LineFilePos lineFile) {
-        InstanceEnvironment instanceEnv = new InstanceEnvironment(
-                clazz.getClassName(),
-                clazz.getDefinitionEnv()
-        );
-        callingEnv.getMemory().addTempEnv(instanceEnv);
+        InstanceEnvironment instanceEnv = new InstanceEnvironment(clazz, levels, level);
+        int rootsMark = callingEnv.getMemory().addTempEnv(instanceEnv);
 
         Instance instance = new Instance(clazzPtr, instanceEnv);
-        Reference instancePtr = callingEnv.getMemory().allocateObject(instance, instanceEnv);
+        Reference instancePtr = callingEnv.getMemory().allocateObject(instance, callingEnv);
+        instanceEnv.setOwnerPtr(instancePtr);
         instanceEnv.defineConstAndSet(Constants.INSTANCE_NAME, instancePtr, lineFile);
 
         String[] templates = clazz.getTemplates();
@@ -122,6 +130,7 @@ public class Instance extends SplObject {
             SplClass supClazz = callingEnv.getMemory().get(supClassPtr);
 
             // deal with templates
+            int genericsMark = callingEnv.getMemory().tempRootsMark();
             String[] scTemplates = supClazz.getTemplates();
             Map<String, Reference> gensForSupClass = null;
             if (scTemplates != null) {
@@ -132,14 +141,21 @@ public class Instance extends SplObject {
                     // class A<T> { ... }
                     // class B<X>(A) { ... }
                     for (String template : supClazz.getTemplates()) {
-                        gensForSupClass.put(template, (Reference) callingEnv.get(Constants.ANY_TYPE, lineFile));
+                        Reference anyType = (Reference) callingEnv.get(Constants.ANY_TYPE, lineFile);
+                        callingEnv.getMemory().addTempPtr(anyType);
+                        gensForSupClass.put(template, anyType);
                     }
                 } else {
                     assert scGens.size() == scTemplates.length;
                     for (int i = 0; i < scTemplates.length; i++) {
                         SplElement probScGen = scGens.get(i).evaluate(instanceEnv);
-                        if (probScGen == Undefined.ERROR) return null;
+                        if (probScGen == Undefined.ERROR) {
+                            callingEnv.getMemory().popTempRoots(rootsMark);
+                            return null;
+                        }
                         Reference scGen = (Reference) probScGen;
+                        // held only here until the superclass instance defines it
+                        callingEnv.getMemory().addTempPtr(scGen);
 //                        System.out.println(scTemplates[i] + " " + scGens.get(i) + " " + callingEnv.getMemory().get(scGen));
                         gensForSupClass.put(scTemplates[i], scGen);
                     }
@@ -154,11 +170,17 @@ public class Instance extends SplObject {
                             supClassPtr,
                             supClazz,
                             gensForSupClass,
+                            levels,
+                            level + 1,
                             callingEnv,
                             lineFile);
+            callingEnv.getMemory().popTempRoots(genericsMark);
 
             // define "super"
-            if (scInsPtr == null) return null;
+            if (scInsPtr == null) {
+                callingEnv.getMemory().popTempRoots(rootsMark);
+                return null;
+            }
             instance.getEnv().directDefineConstAndSet(Constants.SUPER, scInsPtr.pointer);
         }
 
@@ -167,17 +189,15 @@ public class Instance extends SplObject {
             node.evaluate(instanceEnv);
         }
 
-        // define methods
-//        System.out.println(clazz.getClassName() + " " + clazz.getMethodPointers().keySet());
-        for (Map.Entry<String, Reference> entry : clazz.getMethodPointers().entrySet()) {
-            instanceEnv.defineFunction(entry.getKey(), entry.getValue(), lineFile);
-        }
+        // define methods, which are shared by all instances of the class
+        instanceEnv.defineMethods();
 
-        callingEnv.getMemory().removeTempEnv(instanceEnv);
+        callingEnv.getMemory().popTempRoots(rootsMark);
 
         return new InstanceAndPtr(instance, instancePtr);
     }
 
+
     /**
      * @param iap           Instance and instance pointer
      * @param evaluatedArgs evaluated arguments, without 'this' pointer
@@ -4,6 +4,7 @@ import spl.ast.Expression;
 import spl.interpreter.EvaluatedArguments;
 import spl.interpreter.env.Environment;
 import spl.interpreter.env.FunctionEnvironment;
+import spl.interpreter.env.Scope;
 import spl.interpreter.primitives.Reference;
 import spl.interpreter.primitives.SplElement;
 import spl.interpreter.primitives.Undefined;
@@ -21,24 +22,28 @@ public class LambdaExpression extends UserFunction {
     private final int lambdaId = count++;
 
     private final Expression body;
+    private final Scope bodyScope;
 
     public LambdaExpression(Expression body, SplCallable.Parameter[] params, Environment definitionEnv,
-                            LineFilePos lineFile) {
+                            Scope bodyScope, LineFilePos lineFile) {
 
         super(params, definitionEnv, lineFile);
 
         this.body = body;
+        this.bodyScope = bodyScope;
+
+        bindParamsBySlots(bodyScope);
     }
 
     @Override
     public SplElement call(EvaluatedArguments evaluatedArgs, Reference[] generics,
                            Environment callingEnv, LineFilePos lineFile) {
         String name = toString();
-        FunctionEnvironment scope = new FunctionEnvironment(definitionEnv, callingEnv, name);
+        FunctionEnvironment scope = new FunctionEnvironment(definitionEnv, callingEnv, name, bodyScope);
 
         checkValidArgCount(evaluatedArgs.positionalArgs.size(), evaluatedArgs.keywordArgs.size(),
                 name, callingEnv, lineFile);
-        if (callingEnv.hasException()) return Undefined.ERROR;
+        if (callingEnv.pollInterrupt()) return Undefined.ERROR;
 
         setArgs(evaluatedArgs, scope, callingEnv, lineFile);
 
@@ -42,7 +42,10 @@ public abstract class NativeFunction extends SplCallable {
         EvaluatedArguments evaluatedArgs = arguments.evalArgs(callingEnv);
         if (callingEnv.hasException()) return Undefined.ERROR;
 
-        return callFunc(evaluatedArgs, callingEnv, arguments.getLineFile());
+        int rootsMark = callingEnv.getMemory().addTempArgs(evaluatedArgs);
+        SplElement result = callFunc(evaluatedArgs, callingEnv, arguments.getLineFile());
+        callingEnv.getMemory().popTempRoots(rootsMark);
+        return result;
     }
 
     /**
@@ -144,7 +144,7 @@ public class NativeObject extends SplObject {
     public SplElement __hash__(Arguments arguments, Environment env, LineFilePos lineFilePos) {
         checkArgCount(arguments, 0, "__hash__", env, lineFilePos);
 
-        return new Int(this.hashCode());
+        return Int.valueOf(this.hashCode());
     }
 
     public SplElement invoke(Node node, Environment callEnv, LineFilePos lineFile) {
@@ -37,11 +37,70 @@ public class SplArray extends NativeObject {
      */
     private final int elementTypeCode;
 
+    /**
+     * Elements of primitive arrays, which is a {@code long[]}, {@code double[]}, {@code char[]}, {@code byte[]} or
+     * {@code boolean[]} depending on the element type. Primitive arrays take only one heap slot.
+     * <p>
+     * This is {@code null} for pointer arrays, whose elements are stored in the heap slots following the array.
+     */
+    private final Object packed;
+
     private SplArray(int elementTypeCode, Reference typeRef, Reference genericFn, int length) {
-        this.length = new Int(length);
+        this.length = Int.valueOf(length);
         this.elementTypeCode = elementTypeCode;
         this.type = typeRef;
         this.generics = genericFn;
+        this.packed = switch (elementTypeCode) {
+            case SplElement.INT -> new long[length];
+            case SplElement.FLOAT -> new double[length];
+            case SplElement.CHAR -> new char[length];
+            case SplElement.BYTE -> new byte[length];
+            case SplElement.BOOLEAN -> new boolean[length];
+            default -> null;
+        };
+    }
+
+    /**
+     * @return number of heap slots occupied by an array
+     */
+    private static int slotCount(int eleType, int length) {
+        return eleType == SplElement.POINTER ? length + 1 : 1;
+    }
+
+    /**
+     * @return number of heap slots occupied by this array
+     */
+    public int slotCount() {
+        return slotCount(elementTypeCode, (int) length.value);
+    }
+
+    /**
+     * @return whether the elements are stored in java arrays instead of the heap
+     */
+    public boolean isPacked() {
+        return packed != null;
+    }
+
+    private SplElement getPacked(int index) {
+        return switch (elementTypeCode) {
+            case SplElement.INT -> Int.valueOf(((long[]) packed)[index]);
+            case SplElement.FLOAT -> new SplFloat(((double[]) packed)[index]);
+            case SplElement.CHAR -> Char.valueOf(((char[]) packed)[index]);
+            case SplElement.BYTE -> SplByte.valueOf(((byte[]) packed)[index]);
+            case SplElement.BOOLEAN -> Bool.boolValueOf(((boolean[]) packed)[index]);
+            default -> throw new NativeTypeError();
+        };
+    }
+
+    private void setPacked(int index, SplElement value) {
+        switch (elementTypeCode) {
+            case SplElement.INT -> ((long[]) packed)[index] = value.intValue();
+            case SplElement.FLOAT -> ((double[]) packed)[index] = value.floatValue();
+            case SplElement.CHAR -> ((char[]) packed)[index] = (char) value.intValue();
+            case SplElement.BYTE -> ((byte[]) packed)[index] = (byte) value.intValue();
+            case SplElement.BOOLEAN -> ((boolean[]) packed)[index] = value.booleanValue();
+            default -> throw new NativeTypeError();
+        }
     }
 
     private static int typeToCode(SplElement se, Environment env, LineFilePos lineFilePos) {
@@ -96,10 +155,11 @@ public class SplArray extends NativeObject {
                                         int arrSize,
                                         Environment env) {
         Memory memory = env.getMemory();
-        Reference arrPtr = memory.allocate(arrSize + 1, env);
+        Reference arrPtr = memory.allocate(slotCount(eleType, arrSize), env);
         SplArray arrIns = new SplArray(eleType, typeRef, generics, arrSize);
         memory.set(arrPtr, arrIns);
-        fillInitValue(eleType, arrPtr, memory, arrSize);
+        // packed arrays are initialized by java
+        if (!arrIns.isPacked()) fillInitValue(eleType, arrPtr, memory, arrSize);
         return arrPtr;
     }
 
@@ -130,7 +190,7 @@ public class SplArray extends NativeObject {
     }
 
     public static void fillInitValue(int eleType, Reference arrayPtr, Memory memory, int arrayLength) {
-        int firstEleAddr = arrayPtr.getPtr() + 1;
+        int firstEleAddr = memory.addressOf(arrayPtr) + 1;
         SplElement defaultValue = switch (eleType) {
             case SplElement.INT -> Int.ZERO;
             case SplElement.FLOAT -> SplFloat.ZERO;
@@ -156,7 +216,21 @@ public class SplArray extends NativeObject {
                     lineFile);
             return Undefined.ERROR;
         }
-        return env.getMemory().getPrimitive(arrPtr.getPtr() + index + 1);
+        return getItem(arrPtr, index, env.getMemory());
+    }
+
+    /**
+     * Returns the element at {@code index} without bounds check.
+     *
+     * @param arrPtr pointer to the array
+     * @param index  index of the element
+     * @param memory the memory
+     * @return the element
+     */
+    public static SplElement getItem(Reference arrPtr, int index, Memory memory) {
+        SplArray array = memory.get(arrPtr);
+        if (array.isPacked()) return array.getPacked(index);
+        return memory.getPrimitive(memory.addressOf(arrPtr) + index + 1);
     }
 
     public static void setItemAtIndex(Reference arrPtr,
@@ -204,7 +278,8 @@ public class SplArray extends NativeObject {
                     return;
                 }
             }
-            env.getMemory().set(arrPtr.getPtr() + index + 1, value);
+            if (array.isPacked()) array.setPacked(index, value);
+            else env.getMemory().set(env.getMemory().addressOf(arrPtr) + index + 1, value);
         } else {
             SplInvokes.throwException(env,
                     Constants.TYPE_ERROR,
@@ -215,36 +290,38 @@ public class SplArray extends NativeObject {
     }
 
     public static char[] toJavaCharArray(Reference arrPtr, Memory memory) {
-        int[] lenPtr = toJavaArrayCommon(arrPtr, memory);
-
-        char[] javaCharArray = new char[lenPtr[0]];
+        SplArray array = memory.get(arrPtr);
+        if (array.elementTypeCode == SplElement.CHAR) return ((char[]) array.packed).clone();
 
+        char[] javaCharArray = new char[(int) array.length.value];
         for (int j = 0; j < javaCharArray.length; ++j) {
-            SplElement value = memory.getPrimitive(lenPtr[1] + j);
-            javaCharArray[j] = (char) value.intValue();
+            javaCharArray[j] = (char) getItem(arrPtr, j, memory).intValue();
         }
-
         return javaCharArray;
     }
 
     public static byte[] toJavaByteArray(Reference arrPtr, Memory memory) {
-        int[] lenPtr = toJavaArrayCommon(arrPtr, memory);
-
-        byte[] javaByteArray = new byte[lenPtr[0]];
+        SplArray array = memory.get(arrPtr);
+        if (array.elementTypeCode == SplElement.BYTE) return ((byte[]) array.packed).clone();
 
+        byte[] javaByteArray = new byte[(int) array.length.value];
         for (int i = 0; i < javaByteArray.length; i++) {
-            SplElement value = memory.getPrimitive(lenPtr[1] + i);
-            javaByteArray[i] = (byte) value.intValue();
+            javaByteArray[i] = (byte) getItem(arrPtr, i, memory).intValue();
         }
-
         return javaByteArray;
     }
 
     public static Reference fromJavaArray(byte[] array, Environment env, LineFilePos lineFilePos) {
         Reference arrayRef = createArray(SplElement.BYTE, array.length, env);
-        for (int i = 0; i < array.length; i++) {
-            setItemAtIndex(arrayRef, i, new SplByte(array[i]), env, lineFilePos);
-        }
+        SplArray arrIns = env.getMemory().get(arrayRef);
+        System.arraycopy(array, 0, arrIns.packed, 0, array.length);
+        return arrayRef;
+    }
+
+    public static Reference fromJavaArray(char[] array, Environment env, LineFilePos lineFilePos) {
+        Reference arrayRef = createArray(SplElement.CHAR, array.length, env);
+        SplArray arrIns = env.getMemory().get(arrayRef);
+        System.arraycopy(array, 0, arrIns.packed, 0, array.length);
         return arrayRef;
     }
 
@@ -252,22 +329,15 @@ public class SplArray extends NativeObject {
         Reference obj = (Reference) env.get(Constants.OBJ, lineFilePos);
         Reference isString = (Reference) env.get(Constants.STRING_CLASS + "?", lineFilePos);
         Reference arrayRef = createArray(SplElement.POINTER, obj, isString, array.length, env);
+        int rootsMark = env.getMemory().addTempPtr(arrayRef);
         for (int i = 0; i < array.length; i++) {
             SplElement key = StringLiteral.createString(array[i].toCharArray(), env, lineFilePos);
             setItemAtIndex(arrayRef, i, key, env, lineFilePos);
         }
+        env.getMemory().popTempRoots(rootsMark);
         return arrayRef;
     }
 
-    private static int[] toJavaArrayCommon(Reference arrPtr, Memory memory) {
-        SplArray array = memory.get(arrPtr);
-
-        int firstEleAddr = arrPtr.getPtr() + 1;
-
-        // returns array length and addr of first element
-        return new int[]{(int) array.length.value, firstEleAddr};
-    }
-
     @Override
     public String toString() {
         return SplElement.typeToString(elementTypeCode) + "[" + length + "]";
@@ -4,6 +4,8 @@ import spl.ast.*;
 import spl.interpreter.Memory;
 import spl.interpreter.env.Environment;
 import spl.interpreter.env.ModuleEnvironment;
+import spl.interpreter.env.Scope;
+import spl.interpreter.env.VarEntry;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.Reference;
@@ -36,6 +38,18 @@ public class SplClass extends NativeObject implements ClassLike {
     private final LinkedHashMap<String, Node> fieldNodes = new LinkedHashMap<>();
     private final Map<String, Reference> methodPointers = new HashMap<>();
     private final Set<String> constMethods = new HashSet<>();
+    /**
+     * Entries of {@code methodPointers}, shared by the environments of all instances of this class.
+     */
+    private final Map<String, VarEntry> methodEntries = new HashMap<>();
+    /**
+     * Layout of the environments of instances of this class, which has a slot for each field.
+     */
+    private final Scope shape = new Scope(false);
+    /**
+     * Levels of the instance hierarchy of this class where each name may be found, built on first use.
+     */
+    private Map<String, int[]> levelTable;
     private final String[] templates;
     private final boolean isConst;
     private final StringLiteralRef docRef;
@@ -48,6 +62,10 @@ public class SplClass extends NativeObject implements ClassLike {
     // mro array used by java
     // the first is the self class
     private Reference[] mroArray;
+    /**
+     * Ids of the classes in {@code mroArray}, so that subtype checks do not walk the mro.
+     */
+    private BitSet mroClassIds;
     private Reference classNameRef;
     private String mroErrorMsg = "";
 
@@ -87,6 +105,7 @@ public class SplClass extends NativeObject implements ClassLike {
 
         evalBody(body, definitionEnv);
         checkConstructor();
+        makeShape();
     }
 
     public static SplElement createClassAndAllocate(String className,
@@ -114,18 +133,26 @@ public class SplClass extends NativeObject implements ClassLike {
             }
         }
 
+        Memory memory = definitionEnv.getMemory();
+        // annotations and methods are temporary roots until they are reachable from the class
+        int rootsMark = memory.addTempPtr(annArrRef);
         SplClass clazz = new SplClass(className, superclassPointers, templates, superclassGenerics,
                 body, definitionEnv, docRef, annArrRef, isConst);
-        if (definitionEnv.hasException()) return Undefined.ERROR;
+        if (definitionEnv.hasException()) {
+            memory.popTempRoots(rootsMark);
+            return Undefined.ERROR;
+        }
 
-        Reference clazzPtr = definitionEnv.getMemory().allocateObject(clazz, definitionEnv);
+        Reference clazzPtr = memory.allocateObject(clazz, definitionEnv);
+        memory.popTempRoots(rootsMark);
 
-        definitionEnv.getMemory().addTempPtr(clazzPtr);
+        memory.addTempPtr(clazzPtr);
 
-        if (!clazz.makeMro(clazzPtr, lineFilePos)) return Undefined.ERROR;
-        clazz.updateMethods(clazzPtr);
+        boolean mroMade = clazz.makeMro(clazzPtr, lineFilePos);
+        if (mroMade) clazz.updateMethods(clazzPtr);
 
-        definitionEnv.getMemory().removeTempPtr(clazzPtr);
+        memory.popTempRoots(rootsMark);
+        if (!mroMade) return Undefined.ERROR;
 
         return clazzPtr;
     }
@@ -148,10 +175,9 @@ public class SplClass extends NativeObject implements ClassLike {
             Reference childClassPtr = (Reference) childClassEle;
             SplObject splObject = memory.get(childClassPtr);
             if (splObject instanceof SplClass) {
-                SplClass childClazz = (SplClass) splObject;
-                for (Reference supPtr : childClazz.mroArray) {
-                    if (superclassPtr.equals(supPtr)) return true;
-                }
+                SplObject superclassObj = memory.get(superclassPtr);
+                return superclassObj instanceof SplClass &&
+                        ((SplClass) splObject).mroClassIds.get(((SplClass) superclassObj).classId);
             }
         }
         return false;
@@ -174,10 +200,7 @@ public class SplClass extends NativeObject implements ClassLike {
         if (childClassEle instanceof Reference) {
             SplObject childClassObj = memory.get((Reference) childClassEle);
             if (childClassObj instanceof SplClass) {
-                for (Reference supPtr : ((SplClass) childClassObj).mroArray) {
-                    SplClass supClass = memory.get(supPtr);
-                    if (supClass == this) return true;
-                }
+                return ((SplClass) childClassObj).mroClassIds.get(classId);
             }
         }
         return false;
@@ -197,6 +220,7 @@ public class SplClass extends NativeObject implements ClassLike {
         for (Reference methodPtr : methodPointers.values()) {
             SplMethod method = definitionEnv.getMemory().get(methodPtr);
             method.setClassPtr(clazzPtr);
+            definitionEnv.getMemory().recordWrite(method, clazzPtr);
             checkOverride(method);
         }
     }
@@ -259,8 +283,11 @@ public class SplClass extends NativeObject implements ClassLike {
         }
 
         this.mroArray = mro.toArray(new Reference[0]);
+        this.mroClassIds = new BitSet(classId + 1);
+        mroClassIds.set(classId);
         for (int i = 1; i < mroArray.length; i++) {
             SplClass supClass = definitionEnv.getMemory().get(mroArray[i]);
+            mroClassIds.set(supClass.classId);
             if (supClass.isConst) {
                 SplInvokes.throwException(
                         definitionEnv,
@@ -393,6 +420,7 @@ public class SplClass extends NativeObject implements ClassLike {
             SplElement mp = fd.evalAsMethod(definitionEnv, classId);
             if (definitionEnv.hasException()) return false;
             Reference methodPtr = (Reference) mp;
+            definitionEnv.getMemory().addTempPtr(methodPtr);
             methodPointers.put(fd.name.getName(), methodPtr);
             if (fd.isConst()) constMethods.add(fd.name.getName());
         } else if (lineNode instanceof ContractNode) {
@@ -415,14 +443,68 @@ public class SplClass extends NativeObject implements ClassLike {
             SplElement cp = fd.evalAsMethod(definitionEnv, classId);
             if (definitionEnv.hasException()) return;
             Reference constructorPtr = (Reference) cp;
+            definitionEnv.getMemory().addTempPtr(constructorPtr);
             methodPointers.put(Constants.CONSTRUCTOR, constructorPtr);
         }
     }
 
+    private void makeShape() {
+        shape.declare(Constants.INSTANCE_NAME);
+        if (!superclassPointers.isEmpty()) shape.declare(Constants.SUPER);
+        for (String fieldName : fieldNodes.keySet()) {
+            shape.declare(fieldName);
+        }
+        for (Map.Entry<String, Reference> entry : methodPointers.entrySet()) {
+            methodEntries.put(entry.getKey(), VarEntry.sharedEntry(definitionEnv, entry.getValue()));
+        }
+    }
+
     public Map<String, Reference> getMethodPointers() {
         return methodPointers;
     }
 
+    public Map<String, VarEntry> getMethodEntries() {
+        return methodEntries;
+    }
+
+    public Scope getShape() {
+        return shape;
+    }
+
+    /**
+     * Returns the levels where each name may be found in the environments of an instance of this class.
+     * <p>
+     * An instance has an environment for each class in the mro, level {@code i} being the environment of the
+     * {@code i}th class. A name is defined only at the levels where the class has a generic, a field or a method of
+     * that name, so that a lookup visits these levels only.
+     *
+     * @return the map from each name to its levels in ascending order
+     */
+    public Map<String, int[]> getLevelTable() {
+        Map<String, int[]> table = levelTable;
+        if (table == null) {
+            Map<String, List<Integer>> levels = new HashMap<>();
+            Memory memory = definitionEnv.getMemory();
+            for (int i = 0; i < mroArray.length; i++) {
+                SplClass clazz = memory.get(mroArray[i]);
+                Set<String> names = new HashSet<>(clazz.fieldNodes.keySet());
+                names.addAll(clazz.methodPointers.keySet());
+                names.add(Constants.INSTANCE_NAME);
+                names.add(Constants.SUPER);
+                if (clazz.templates != null) names.addAll(Arrays.asList(clazz.templates));
+                for (String name : names) {
+                    levels.computeIfAbsent(name, n -> new ArrayList<>()).add(i);
+                }
+            }
+            table = new HashMap<>();
+            for (Map.Entry<String, List<Integer>> entry : levels.entrySet()) {
+                table.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            levelTable = table;
+        }
+        return table;
+    }
+
     public LinkedHashMap<String, Node> getFieldNodes() {
         return fieldNodes;
     }
@@ -457,6 +539,7 @@ public class SplClass extends NativeObject implements ClassLike {
 
         if (classNameRef == null) {
             classNameRef = StringLiteral.createString(className.toCharArray(), env, lineFilePos);
+            env.getMemory().recordWrite(this, classNameRef);
         }
         return classNameRef;
     }
@@ -5,6 +5,7 @@ import spl.ast.StringLiteral;
 import spl.interpreter.EvaluatedArguments;
 import spl.interpreter.env.Environment;
 import spl.interpreter.env.FunctionEnvironment;
+import spl.interpreter.env.Scope;
 import spl.interpreter.invokes.SplInvokes;
 import spl.interpreter.primitives.Bool;
 import spl.interpreter.primitives.Reference;
@@ -36,6 +37,12 @@ public abstract class UserFunction extends SplCallable {
     private int maxPosArg;
     private int maxKwArg;
 
+    /**
+     * The scope of the function body, and the slot of each parameter in it, if arguments can be bound by slots.
+     */
+    private Scope paramScope;
+    private int[] paramSlots;
+
     protected UserFunction(Parameter[] parameters, Environment definitionEnv, LineFilePos lineFile) {
         this.params = parameters;
         this.definitionEnv = definitionEnv;
@@ -56,6 +63,27 @@ public abstract class UserFunction extends SplCallable {
         }
     }
 
+    /**
+     * Lets calls that pass exactly one positional argument for each parameter bind the arguments to their slots,
+     * instead of defining and assigning each parameter by name.
+     *
+     * @param bodyScope the scope of the function body, which has all parameters declared
+     */
+    protected void bindParamsBySlots(Scope bodyScope) {
+        if (bodyScope == null) return;
+        int[] slots = new int[params.length];
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < params.length; i++) {
+            Parameter param = params[i];
+            // duplicate names must go through the general path to report the error
+            if (param.unpackCount != 0 || !names.add(param.name)) return;
+            slots[i] = bodyScope.slotOf(param.name);
+            if (slots[i] < 0) return;
+        }
+        paramScope = bodyScope;
+        paramSlots = slots;
+    }
+
     public static SplElement getContractFunction(Node conNode, FunctionEnvironment scope, LineFilePos lineFile) {
         SplElement res = conNode.evaluate(scope);
         if (res instanceof Reference) return res;
@@ -162,12 +190,20 @@ public abstract class UserFunction extends SplCallable {
 
         boolean checkContract = hasContract && callingEnv.getMemory().isCheckContract();
 
+        if (paramSlots != null && !checkContract && scope.getScope() == paramScope &&
+                evaluatedArgs.keywordArgs.isEmpty() && evaluatedArgs.positionalArgs.size() == params.length) {
+            for (int i = 0; i < params.length; i++) {
+                scope.defineSlotAndSet(paramSlots[i], evaluatedArgs.positionalArgs.get(i), params[i].constant);
+            }
+            return;
+        }
+
         Set<String> usedKwargs = new HashSet<>();
         boolean noKwParam = true;
         int argIndex = 0;
         for (Parameter param : params) {
             String paramName = param.name;
-            String location = "the " + Utilities.numberToOrder(argIndex + 1) + " argument";
+            String location = checkContract ? "the " + Utilities.numberToOrder(argIndex + 1) + " argument" : null;
 
             if (param.constant) scope.defineConst(paramName, lineFile);
             else scope.defineVar(paramName, lineFile);  // declare param
@@ -201,6 +237,7 @@ public abstract class UserFunction extends SplCallable {
                 }
 
                 Reference arrPtr = SplArray.createArray(SplElement.POINTER, unpackArgs.length, scope);
+                int rootsMark = scope.getMemory().addTempPtr(arrPtr);
                 for (int j = 0; j < unpackArgs.length; j++) {
                     SplElement arg = unpackArgs[j];
                     // In this case, the only choice is check contract before actually set it.
@@ -212,6 +249,7 @@ public abstract class UserFunction extends SplCallable {
                             callingEnv,
                             lineFile,
                             "the " + Utilities.numberToOrder(unpackArgBegin + j + 1) + " argument")) {
+                        scope.getMemory().popTempRoots(rootsMark);
                         return;
                     }
                     if (arg instanceof Reference) {
@@ -223,11 +261,12 @@ public abstract class UserFunction extends SplCallable {
                 }
                 // check each args' contract instead of the array
                 success = setArg(scope, callingEnv, param, arrPtr, false, lineFile, location);
+                scope.getMemory().popTempRoots(rootsMark);
             } else if (param.unpackCount == 2) {  // **kwargs
                 noKwParam = false;
                 int size = evaluatedArgs.keywordArgs.size();
                 Reference keyArrPtr = SplArray.createArray(SplElement.POINTER, size, scope);
-                scope.getMemory().addTempPtr(keyArrPtr);
+                int rootsMark = scope.getMemory().addTempPtr(keyArrPtr);
                 Reference valueArrPtr = SplArray.createArray(SplElement.POINTER, size, scope);
                 scope.getMemory().addTempPtr(valueArrPtr);
 
@@ -237,11 +276,13 @@ public abstract class UserFunction extends SplCallable {
                                 EvaluatedArguments.of(keyArrPtr, valueArrPtr),
                                 scope,
                                 lineFile);
-                if (dict == null) return;
+                if (dict == null) {
+                    scope.getMemory().popTempRoots(rootsMark);
+                    return;
+                }
                 success = setArg(scope, callingEnv, param, dict.pointer, false, lineFile, location);
 
-                scope.getMemory().removeTempPtr(valueArrPtr);
-                scope.getMemory().removeTempPtr(keyArrPtr);
+                scope.getMemory().popTempRoots(rootsMark);
 
                 int j = 0;
                 for (Map.Entry<String, SplElement> argEntry : evaluatedArgs.keywordArgs.entrySet()) {
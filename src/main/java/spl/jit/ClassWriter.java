@@ -0,0 +1,183 @@
+package spl.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a class file with the constant pool entries and methods added to it.
+ * <p>
+ * Classes are written in version 49, the last version verified by type inference, so that methods need no stack
+ * map frames.
+ */
+final class ClassWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    /**
+     * Index of each constant pool entry, by a key made of its tag and contents.
+     */
+    private final Map<String, Integer> poolIndices = new HashMap<>();
+    private int poolCount = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name       the internal name of the class
+     * @param superName  the internal name of the super class
+     * @param interfaces the internal names of the implemented interfaces
+     */
+    ClassWriter(String name, String superName, String... interfaces) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        this.interfaces = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            this.interfaces[i] = classRef(interfaces[i]);
+        }
+    }
+
+    int utf8(String value) {
+        Integer index = poolIndices.get("U" + value);
+        if (index != null) return index;
+        try {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return addEntry("U" + value, 1);
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return indexOf("C" + internalName, CONSTANT_CLASS, name);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return indexOf("M" + owner + '.' + name + descriptor, CONSTANT_METHOD_REF, ownerIndex, nameAndType);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return indexOf("F" + owner + '.' + name + descriptor, CONSTANT_FIELD_REF, ownerIndex, nameAndType);
+    }
+
+    int longConstant(long value) {
+        Integer index = poolIndices.get("J" + value);
+        if (index != null) return index;
+        try {
+            pool.writeByte(CONSTANT_LONG);
+            pool.writeLong(value);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        // a long takes two entries
+        return addEntry("J" + value, 2);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        return indexOf("N" + name + ' ' + descriptor, CONSTANT_NAME_AND_TYPE, nameIndex, descIndex);
+    }
+
+    /**
+     * @return the index of the entry of {@code key}, which is written with {@code tag} and two-byte {@code operands}
+     * if it is new
+     */
+    private int indexOf(String key, int tag, int... operands) {
+        Integer index = poolIndices.get(key);
+        if (index != null) return index;
+        try {
+            pool.writeByte(tag);
+            for (int operand : operands) pool.writeShort(operand);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return addEntry(key, 1);
+    }
+
+    private int addEntry(String key, int size) {
+        int index = poolCount;
+        poolIndices.put(key, index);
+        poolCount += size;
+        return index;
+    }
+
+    void addMethod(int access, String name, String descriptor, CodeBuilder code) {
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        byte[] bytecode = code.toByteArray();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descIndex);
+            out.writeShort(1);  // attributes count
+            out.writeShort(codeIndex);
+            out.writeInt(12 + bytecode.length);
+            out.writeShort(code.getMaxStack());
+            out.writeShort(code.getMaxLocals());
+            out.writeInt(bytecode.length);
+            out.write(bytecode);
+            out.writeShort(0);  // exception table length
+            out.writeShort(0);  // attributes count of code
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int itf : interfaces) out.writeShort(itf);
+            out.writeShort(0);  // fields count
+            out.writeShort(methods.size());
+            for (byte[] method : methods) out.write(method);
+            out.writeShort(0);  // attributes count
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,167 @@
+package spl.jit;
+
+import spl.util.IntList;
+
+import java.util.Arrays;
+
+/**
+ * Builds the code of a jvm method, keeping track of the maximum operand stack height.
+ * <p>
+ * Heights are counted in slots, so a long takes two. Jumps are made to labels, which are patched when the code is
+ * done. Code that jumps must only do so with an empty operand stack.
+ */
+final class CodeBuilder {
+
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int LCONST_0 = 0x09;
+    static final int LCONST_1 = 0x0a;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int ALOAD = 0x19;
+    static final int LALOAD = 0x2f;
+    static final int ISUB = 0x64;
+    static final int LADD = 0x61;
+    static final int LSUB = 0x65;
+    static final int LMUL = 0x69;
+    static final int LDIV = 0x6d;
+    static final int LREM = 0x71;
+    static final int LNEG = 0x75;
+    static final int LSHL = 0x79;
+    static final int LSHR = 0x7b;
+    static final int LUSHR = 0x7d;
+    static final int LAND = 0x7f;
+    static final int LOR = 0x81;
+    static final int LXOR = 0x83;
+    static final int L2I = 0x88;
+    static final int LCMP = 0x94;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int GOTO = 0xa7;
+    static final int LRETURN = 0xad;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int ATHROW = 0xbf;
+
+    private byte[] code = new byte[64];
+    private int length;
+    private int stack;
+    private int maxStack;
+    private final int maxLocals;
+
+    /**
+     * Position of each label, {@code -1} until it is bound.
+     */
+    private final IntList labels = new IntList();
+    /**
+     * Pairs of the position of a jump instruction and the label it jumps to.
+     */
+    private final IntList jumps = new IntList();
+
+    /**
+     * @param maxLocals the number of local variable slots, including the parameters
+     */
+    CodeBuilder(int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    /**
+     * Emits an instruction without operands.
+     *
+     * @param stackDelta the change of the operand stack height
+     */
+    void op(int opcode, int stackDelta) {
+        putByte(opcode);
+        adjustStack(stackDelta);
+    }
+
+    /**
+     * Emits an instruction with a one-byte operand.
+     */
+    void op1(int opcode, int operand, int stackDelta) {
+        putByte(opcode);
+        putByte(operand);
+        adjustStack(stackDelta);
+    }
+
+    /**
+     * Emits an instruction with a two-byte operand.
+     */
+    void op2(int opcode, int operand, int stackDelta) {
+        putByte(opcode);
+        putByte(operand >> 8);
+        putByte(operand);
+        adjustStack(stackDelta);
+    }
+
+    void pushInt(int value) {
+        if (value >= -1 && value <= 5) op(ICONST_0 + value, 1);
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) op1(BIPUSH, value, 1);
+        else op2(SIPUSH, value, 1);
+    }
+
+    int newLabel() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    void bind(int label) {
+        labels.set(label, length);
+    }
+
+    /**
+     * Emits a jump to {@code label}.
+     *
+     * @param stackDelta the change of the operand stack height
+     */
+    void jump(int opcode, int label, int stackDelta) {
+        jumps.add(length);
+        jumps.add(label);
+        op2(opcode, 0, stackDelta);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    /**
+     * @return the code, with the offsets of all jumps patched
+     */
+    byte[] toByteArray() {
+        for (int i = 0; i < jumps.size(); i += 2) {
+            int pos = jumps.get(i);
+            int offset = labels.get(jumps.get(i + 1)) - pos;
+            code[pos + 1] = (byte) (offset >> 8);
+            code[pos + 2] = (byte) offset;
+        }
+        return Arrays.copyOf(code, length);
+    }
+
+    private void putByte(int b) {
+        if (length == code.length) code = Arrays.copyOf(code, length * 2);
+        code[length++] = (byte) b;
+    }
+
+    private void adjustStack(int delta) {
+        stack += delta;
+        maxStack = Math.max(maxStack, stack);
+    }
+}
@@ -0,0 +1,124 @@
+package spl.jit;
+
+import spl.ast.BlockStmt;
+import spl.interpreter.EvaluatedArguments;
+import spl.interpreter.env.Environment;
+import spl.interpreter.env.VarEntry;
+import spl.interpreter.primitives.Int;
+import spl.interpreter.primitives.Reference;
+import spl.interpreter.primitives.SplElement;
+import spl.interpreter.primitives.Undefined;
+import spl.interpreter.splErrors.NativeError;
+import spl.interpreter.splObjects.Function;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The body of a hot function, compiled to a hidden jvm class by {@code JitCompiler}, so that the jvm optimizes it
+ * as java code.
+ * <p>
+ * The compiled code assumes that every argument is an {@code Int}, and that the name of the function is still bound
+ * to it if the body calls itself. A call that breaks one of these assumptions deoptimizes the function: the compiled
+ * code is dropped and the function runs in the tree interpreter from then on. Calls the compiled code cannot finish,
+ * such as an overflowing recursion or a division by zero, are run again in the tree interpreter, which is correct
+ * because compiled bodies have no side effects.
+ */
+public final class CompiledFunction {
+
+    private final Function function;
+    private final Environment definitionEnv;
+    private final int paramCount;
+    private final JitCode code;
+    /**
+     * Whether the body calls the function by its name.
+     */
+    private final boolean selfCalling;
+    private boolean invalidated;
+
+    private CompiledFunction(Function function, Environment definitionEnv, int paramCount, JitCode code,
+                             boolean selfCalling) {
+        this.function = function;
+        this.definitionEnv = definitionEnv;
+        this.paramCount = paramCount;
+        this.code = code;
+        this.selfCalling = selfCalling;
+    }
+
+    /**
+     * Compiles the body of a function.
+     *
+     * @param function      the function
+     * @param body          the body of the function
+     * @param paramNames    the names of the parameters, none of which unpacks arguments
+     * @param definitionEnv the environment where the function is defined
+     * @return the compiled function, or {@code null} if the body is not in the compiled subset
+     */
+    public static CompiledFunction compile(Function function,
+                                           BlockStmt body,
+                                           String[] paramNames,
+                                           Environment definitionEnv) {
+        List<String> names = Arrays.asList(paramNames);
+        if (new HashSet<>(names).size() != names.size()) return null;
+
+        JitCompiler compiler = new JitCompiler(names, function.getName());
+        if (!compiler.canCompile(body)) return null;
+        byte[] classFile = compiler.compile(body);
+        if (classFile == null) return null;
+
+        JitCode code;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            code = (JitCode) lookup.lookupClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new NativeError(e);
+        }
+        return new CompiledFunction(function, definitionEnv, paramNames.length, code, compiler.isSelfCalling());
+    }
+
+    /**
+     * Calls the compiled code with positional arguments.
+     *
+     * @return the returned value, or {@code null} if the call must be run in the tree interpreter
+     */
+    public SplElement call(EvaluatedArguments evaluatedArgs, Environment callingEnv) {
+        if (!evaluatedArgs.keywordArgs.isEmpty() || evaluatedArgs.positionalArgs.size() != paramCount) return null;
+
+        long[] args = new long[paramCount];
+        for (int i = 0; i < paramCount; i++) {
+            SplElement arg = evaluatedArgs.positionalArgs.get(i);
+            if (!(arg instanceof Int)) {
+                invalidated = true;
+                return null;
+            }
+            args[i] = ((Int) arg).value;
+        }
+        if (selfCalling && !isBoundToName()) {
+            invalidated = true;
+            return null;
+        }
+        if (callingEnv.pollInterrupt()) return Undefined.ERROR;
+
+        try {
+            return Int.valueOf(code.invoke(args, callingEnv.getMemory().remainingStack(), callingEnv.globalEnv));
+        } catch (Deoptimization | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the compiled code was dropped, after which this function always runs in the tree interpreter
+     */
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    private boolean isBoundToName() {
+        VarEntry entry = definitionEnv.getEntry(function.getName());
+        return entry != null &&
+                entry.getValue() instanceof Reference &&
+                definitionEnv.getMemory().get((Reference) entry.getValue()) == function;
+    }
+}
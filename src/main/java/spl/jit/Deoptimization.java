@@ -0,0 +1,16 @@
+package spl.jit;
+
+/**
+ * Thrown by compiled code that cannot go on, when a call would overflow the stack or an interruption is requested.
+ * <p>
+ * Compiled bodies have no side effects, so the call is run again from its start in the tree interpreter, which
+ * reports the error.
+ */
+final class Deoptimization extends RuntimeException {
+
+    static final Deoptimization INSTANCE = new Deoptimization();
+
+    private Deoptimization() {
+        super(null, null, false, false);
+    }
+}
@@ -0,0 +1,20 @@
+package spl.jit;
+
+import spl.interpreter.env.GlobalEnvironment;
+
+/**
+ * The interface implemented by the class compiled from a function body.
+ */
+interface JitCode {
+
+    /**
+     * Runs the body.
+     *
+     * @param args      the value of each parameter
+     * @param budget    the number of calls that can be made before a stack overflow, including this one
+     * @param globalEnv the global environment, polled for interruptions at each call
+     * @return the returned value
+     * @throws Deoptimization if the call must be run in the tree interpreter instead
+     */
+    long invoke(long[] args, int budget, GlobalEnvironment globalEnv);
+}
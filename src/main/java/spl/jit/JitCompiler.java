@@ -0,0 +1,377 @@
+package spl.jit;
+
+import spl.ast.*;
+
+import java.util.List;
+
+import static spl.jit.ClassWriter.*;
+import static spl.jit.CodeBuilder.*;
+
+/**
+ * Compiles the body of a function to a class implementing {@code JitCode}.
+ * <p>
+ * Only bodies that compute an int from int parameters without side effects are compiled: if statements, return
+ * statements, int literals, parameters, arithmetic and bitwise operators, comparisons, 'and', 'or', 'not', negation
+ * and calls of the function itself by its name. Every path of the body must return. Values are unboxed longs, with
+ * the same overflow, division and shift semantics as {@code Int}.
+ * <p>
+ * The body is compiled to a static method {@code run}, which takes the parameters, the call budget and the global
+ * environment, and calls itself directly.
+ */
+final class JitCompiler {
+
+    private static final String CLASS_NAME = "spl/jit/CompiledBody";
+    private static final String JIT_CODE = "spl/jit/JitCode";
+    private static final String GLOBAL_ENV = "spl/interpreter/env/GlobalEnvironment";
+    private static final String DEOPTIMIZATION = "spl/jit/Deoptimization";
+    /**
+     * Maximum number of parameters, so that every local variable slot fits in one byte.
+     */
+    private static final int MAX_PARAMS = 64;
+
+    private final List<String> paramNames;
+    private final String name;
+    private final String runDescriptor;
+    private final int budgetSlot;
+    private final int envSlot;
+    /**
+     * Whether the body calls the function by its name.
+     */
+    private boolean selfCalling;
+
+    private ClassWriter cw;
+    private CodeBuilder code;
+    private int runRef;
+
+    /**
+     * @param paramNames the distinct names of the parameters
+     * @param name       the name of the function, or an empty string
+     */
+    JitCompiler(List<String> paramNames, String name) {
+        this.paramNames = paramNames;
+        this.name = name;
+        this.runDescriptor = "(" + "J".repeat(paramNames.size()) + "IL" + GLOBAL_ENV + ";)J";
+        this.budgetSlot = paramNames.size() * 2;
+        this.envSlot = budgetSlot + 1;
+    }
+
+    /**
+     * @return {@code true} if {@code body} is in the compiled subset
+     */
+    boolean canCompile(BlockStmt body) {
+        return paramNames.size() <= MAX_PARAMS && isBlock(body) && returns(body);
+    }
+
+    /**
+     * @return whether the body checked by {@code canCompile} calls the function by its name
+     */
+    boolean isSelfCalling() {
+        return selfCalling;
+    }
+
+    /**
+     * Compiles a body accepted by {@code canCompile}.
+     *
+     * @return the class file, or {@code null} if the code is too large
+     */
+    byte[] compile(BlockStmt body) {
+        cw = new ClassWriter(CLASS_NAME, "java/lang/Object", JIT_CODE);
+        runRef = cw.methodRef(CLASS_NAME, "run", runDescriptor);
+
+        code = new CodeBuilder(envSlot + 1);
+        int deopt = code.newLabel();
+        code.op1(ILOAD, budgetSlot, 1);
+        code.jump(IFLE, deopt, -1);
+        code.op1(ALOAD, envSlot, 1);
+        code.op2(INVOKEVIRTUAL, cw.methodRef(GLOBAL_ENV, "isInterruptRequested", "()Z"), 0);
+        code.jump(IFNE, deopt, -1);
+        block(body);
+        code.bind(deopt);
+        code.op2(GETSTATIC, cw.fieldRef(DEOPTIMIZATION, "INSTANCE", "L" + DEOPTIMIZATION + ";"), 1);
+        code.op(ATHROW, -1);
+        if (code.length() > Short.MAX_VALUE) return null;
+
+        cw.addMethod(ACC_PRIVATE | ACC_STATIC, "run", runDescriptor, code);
+        cw.addMethod(ACC_PUBLIC, "<init>", "()V", constructor());
+        cw.addMethod(ACC_PUBLIC, "invoke", "([JIL" + GLOBAL_ENV + ";)J", invokeMethod());
+        return cw.toByteArray();
+    }
+
+    private CodeBuilder constructor() {
+        CodeBuilder init = new CodeBuilder(1);
+        init.op1(ALOAD, 0, 1);
+        init.op2(INVOKESPECIAL, cw.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        init.op(RETURN, 0);
+        return init;
+    }
+
+    /**
+     * Unpacks the argument array and calls {@code run}.
+     */
+    private CodeBuilder invokeMethod() {
+        CodeBuilder invoke = new CodeBuilder(4);
+        for (int i = 0; i < paramNames.size(); i++) {
+            invoke.op1(ALOAD, 1, 1);
+            invoke.pushInt(i);
+            invoke.op(LALOAD, 0);
+        }
+        invoke.op1(ILOAD, 2, 1);
+        invoke.op1(ALOAD, 3, 1);
+        invoke.op2(INVOKESTATIC, runRef, -budgetSlot);
+        invoke.op(LRETURN, -2);
+        return invoke;
+    }
+
+    // checks of the subset
+
+    private boolean isBlock(BlockStmt block) {
+        for (Line line : block.getLines()) {
+            for (Node node : line.getChildren()) {
+                if (!isStatement(node)) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isStatement(Node node) {
+        if (node instanceof ReturnStmt) {
+            Node value = ((ReturnStmt) node).getValue();
+            return value != null && isInt(value);
+        } else if (node instanceof IfStmt) {
+            IfStmt ifStmt = (IfStmt) node;
+            return isBool(ifStmt.getCondition()) &&
+                    isBlock(ifStmt.getBodyBlock()) &&
+                    (ifStmt.getElseBlock() == null || isBlock(ifStmt.getElseBlock()));
+        }
+        return false;
+    }
+
+    private boolean isInt(Node node) {
+        if (node instanceof IntLiteral) {
+            return true;
+        } else if (node instanceof NameNode) {
+            return paramNames.contains(((NameNode) node).getName());
+        } else if (node instanceof BinaryOperator) {
+            BinaryOperator bo = (BinaryOperator) node;
+            return intOpcode(bo) != 0 && isInt(bo.getLeft()) && isInt(bo.getRight());
+        } else if (node instanceof RegularUnaryOperator) {
+            RegularUnaryOperator uo = (RegularUnaryOperator) node;
+            return uo.getOperator().equals("neg") && isInt(uo.getValue());
+        } else if (node instanceof FuncCall) {
+            return isSelfCall((FuncCall) node);
+        }
+        return false;
+    }
+
+    private boolean isBool(Node node) {
+        if (node instanceof BoolLiteral) {
+            return true;
+        } else if (node instanceof BinaryOperator) {
+            BinaryOperator bo = (BinaryOperator) node;
+            if (bo.getType() == BinaryOperator.LAZY) {
+                return (bo.getOperator().equals("and") || bo.getOperator().equals("or")) &&
+                        isBool(bo.getLeft()) && isBool(bo.getRight());
+            }
+            return compareOpcode(bo) != 0 && isInt(bo.getLeft()) && isInt(bo.getRight());
+        } else if (node instanceof RegularUnaryOperator) {
+            RegularUnaryOperator uo = (RegularUnaryOperator) node;
+            return uo.getOperator().equals("not") && isBool(uo.getValue());
+        }
+        return false;
+    }
+
+    private boolean isSelfCall(FuncCall call) {
+        if (!(call.getCallObj() instanceof NameNode)) return false;
+        String callee = ((NameNode) call.getCallObj()).getName();
+        if (name.isEmpty() || !callee.equals(name) || paramNames.contains(callee)) return false;
+        List<Node> args = call.getArguments().getLine().getChildren();
+        if (args.size() != paramNames.size()) return false;
+        for (Node arg : args) {
+            if (!isInt(arg)) return false;
+        }
+        selfCalling = true;
+        return true;
+    }
+
+    /**
+     * @return whether every path of the block returns
+     */
+    private static boolean returns(BlockStmt block) {
+        for (Line line : block.getLines()) {
+            for (Node node : line.getChildren()) {
+                if (returns(node)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean returns(Node statement) {
+        if (statement instanceof ReturnStmt) return true;
+        IfStmt ifStmt = (IfStmt) statement;
+        return ifStmt.getElseBlock() != null && returns(ifStmt.getBodyBlock()) && returns(ifStmt.getElseBlock());
+    }
+
+    /**
+     * @return the long instruction of an arithmetic or bitwise operator, or 0 if it is not compiled
+     */
+    private static int intOpcode(BinaryOperator bo) {
+        if (bo.getType() == BinaryOperator.ARITHMETIC) {
+            return switch (bo.getOperator()) {
+                case "+" -> LADD;
+                case "-" -> LSUB;
+                case "*" -> LMUL;
+                case "/" -> LDIV;
+                case "%" -> LREM;
+                default -> 0;
+            };
+        } else if (bo.getType() == BinaryOperator.BITWISE) {
+            return switch (bo.getOperator()) {
+                case "<<" -> LSHL;
+                case ">>" -> LSHR;
+                case ">>>" -> LUSHR;
+                case "&" -> LAND;
+                case "|" -> LOR;
+                case "^" -> LXOR;
+                default -> 0;
+            };
+        }
+        return 0;
+    }
+
+    /**
+     * @return the instruction that jumps if the result of {@code lcmp} satisfies the comparison, or 0 if it is not
+     * compiled
+     */
+    private static int compareOpcode(BinaryOperator bo) {
+        if (bo.getType() != BinaryOperator.LOGICAL) return 0;
+        return switch (bo.getOperator()) {
+            case "==" -> IFEQ;
+            case "!=" -> IFNE;
+            case "<" -> IFLT;
+            case ">" -> IFGT;
+            case "<=" -> IFLE;
+            case ">=" -> IFGE;
+            default -> 0;
+        };
+    }
+
+    private static int negate(int ifOpcode) {
+        return switch (ifOpcode) {
+            case IFEQ -> IFNE;
+            case IFNE -> IFEQ;
+            case IFLT -> IFGE;
+            case IFGE -> IFLT;
+            case IFGT -> IFLE;
+            case IFLE -> IFGT;
+            default -> throw new IllegalArgumentException("Not a comparison: " + ifOpcode);
+        };
+    }
+
+    // code generation, with the operand stack empty between statements
+
+    /**
+     * Compiles the statements of a block, until one that always returns.
+     */
+    private void block(BlockStmt block) {
+        for (Line line : block.getLines()) {
+            for (Node node : line.getChildren()) {
+                statement(node);
+                if (returns(node)) return;
+            }
+        }
+    }
+
+    private void statement(Node node) {
+        if (node instanceof ReturnStmt) {
+            intExpr(((ReturnStmt) node).getValue());
+            code.op(LRETURN, -2);
+            return;
+        }
+        IfStmt ifStmt = (IfStmt) node;
+        int elseLabel = code.newLabel();
+        branch(ifStmt.getCondition(), false, elseLabel);
+        block(ifStmt.getBodyBlock());
+        if (ifStmt.getElseBlock() == null) {
+            code.bind(elseLabel);
+        } else if (returns(ifStmt.getBodyBlock())) {
+            code.bind(elseLabel);
+            block(ifStmt.getElseBlock());
+        } else {
+            int endLabel = code.newLabel();
+            code.jump(GOTO, endLabel, 0);
+            code.bind(elseLabel);
+            block(ifStmt.getElseBlock());
+            code.bind(endLabel);
+        }
+    }
+
+    /**
+     * Pushes the value of an int expression as a long.
+     */
+    private void intExpr(Node node) {
+        if (node instanceof IntLiteral) {
+            long value = ((IntLiteral) node).getValue();
+            if (value == 0) code.op(LCONST_0, 2);
+            else if (value == 1) code.op(LCONST_1, 2);
+            else code.op2(LDC2_W, cw.longConstant(value), 2);
+        } else if (node instanceof NameNode) {
+            code.op1(LLOAD, paramNames.indexOf(((NameNode) node).getName()) * 2, 2);
+        } else if (node instanceof BinaryOperator) {
+            BinaryOperator bo = (BinaryOperator) node;
+            int opcode = intOpcode(bo);
+            intExpr(bo.getLeft());
+            intExpr(bo.getRight());
+            if (opcode == LSHL || opcode == LSHR || opcode == LUSHR) {
+                // the shift distance is an int, of which only the lowest 6 bits are used, as in long shifts
+                code.op(L2I, -1);
+                code.op(opcode, -1);
+            } else {
+                code.op(opcode, -2);
+            }
+        } else if (node instanceof RegularUnaryOperator) {
+            intExpr(((RegularUnaryOperator) node).getValue());
+            code.op(LNEG, 0);
+        } else {
+            for (Node arg : ((FuncCall) node).getArguments().getLine().getChildren()) {
+                intExpr(arg);
+            }
+            code.op1(ILOAD, budgetSlot, 1);
+            code.op(ICONST_1, 1);
+            code.op(ISUB, -1);
+            code.op1(ALOAD, envSlot, 1);
+            code.op2(INVOKESTATIC, runRef, 2 - (budgetSlot + 2));
+        }
+    }
+
+    /**
+     * Jumps to {@code label} if the boolean expression evaluates to {@code when}, or falls through.
+     */
+    private void branch(Node node, boolean when, int label) {
+        if (node instanceof BoolLiteral) {
+            if (((BoolLiteral) node).getValue() == when) code.jump(GOTO, label, 0);
+        } else if (node instanceof RegularUnaryOperator) {
+            branch(((RegularUnaryOperator) node).getValue(), !when, label);
+        } else {
+            BinaryOperator bo = (BinaryOperator) node;
+            if (bo.getType() == BinaryOperator.LAZY) {
+                boolean isAnd = bo.getOperator().equals("and");
+                if (isAnd == when) {
+                    // both operands must evaluate to 'when'
+                    int skip = code.newLabel();
+                    branch(bo.getLeft(), !when, skip);
+                    branch(bo.getRight(), when, label);
+                    code.bind(skip);
+                } else {
+                    branch(bo.getLeft(), when, label);
+                    branch(bo.getRight(), when, label);
+                }
+            } else {
+                intExpr(bo.getLeft());
+                intExpr(bo.getRight());
+                code.op(LCMP, -3);
+                int opcode = compareOpcode(bo);
+                code.jump(when ? opcode : negate(opcode), label, -1);
+            }
+        }
+    }
+}
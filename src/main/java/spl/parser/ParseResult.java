@@ -10,6 +10,8 @@ public class ParseResult {
 
     public ParseResult(BlockStmt root) {
         this.root = root;
+
+        Resolver.resolve(root);
     }
 
     public BlockStmt getRoot() {
@@ -0,0 +1,133 @@
+package spl.parser;
+
+import spl.ast.*;
+import spl.interpreter.env.Scope;
+
+/**
+ * A pass that runs after parsing, which gives each local name a (depth, slot) coordinate.
+ * <p>
+ * The tree is walked twice. The first walk creates a {@code Scope} for each lexical block and declares the names
+ * in it. The second walk binds each {@code NameNode} to the innermost scope that declares its name, so that names
+ * declared after their use in the same block are still found.
+ * <p>
+ * A block that declares nothing and contains only nodes walked by the resolver has its scope elided, it is evaluated
+ * directly in the enclosing environment.
+ * <p>
+ * Module top levels, class bodies and anything else a node does not walk into have no scope. A name that reaches
+ * such a boundary is bound to the top level environment, where its entry is cached. Names inside nodes not walked
+ * into, and names whose coordinate does not match the actual environments, are looked up by name at runtime.
+ */
+public class Resolver {
+
+    private Scope current;
+    private boolean declaring;
+
+    private Resolver() {
+    }
+
+    public static void resolve(BlockStmt root) {
+        Resolver resolver = new Resolver();
+        resolver.declaring = true;
+        root.resolve(resolver);
+        resolver.declaring = false;
+        root.resolve(resolver);
+    }
+
+    /**
+     * Enters the scope of a block. The scope is created in the first walk and reused in the second.
+     *
+     * @param block    the block whose lines are evaluated in a new environment
+     * @param elidable whether the block can be evaluated in the enclosing environment if it declares nothing
+     */
+    public void enterBlock(BlockStmt block, boolean elidable) {
+        block.setScope(enterScope(block.getScope(), elidable));
+    }
+
+    public void exitBlock(BlockStmt block) {
+        exitScope(block.getScope());
+    }
+
+    /**
+     * Enters a scope.
+     * <p>
+     * In the second walk, elided scopes are not entered, so that names inside them are resolved against the
+     * environment where the block is actually evaluated.
+     *
+     * @param scope    the scope created in the first walk, or {@code null} in the first walk
+     * @param elidable whether the scope may be elided
+     * @return the scope
+     */
+    public Scope enterScope(Scope scope, boolean elidable) {
+        if (scope == null) scope = new Scope(elidable);
+        if (declaring || !scope.isElided()) {
+            scope.setParent(current);
+            current = scope;
+        }
+        return scope;
+    }
+
+    public void exitScope(Scope scope) {
+        if (declaring || !scope.isElided()) current = scope.getParent();
+    }
+
+    /**
+     * Records that the current scope contains a node that is not walked into.
+     */
+    public void markDynamic() {
+        if (declaring && current != null) current.markDynamic();
+    }
+
+    public void declare(String name) {
+        if (declaring && current != null) current.declare(name);
+    }
+
+    /**
+     * Declares the parameters of a function in the current scope, and resolves default values in the
+     * {@code definitionScope}.
+     *
+     * @param parameters      the parameters line
+     * @param definitionScope the scope where the function is defined
+     */
+    public void declareParams(Line parameters, Scope definitionScope) {
+        for (Node param : parameters.getChildren()) {
+            declareParam(param, definitionScope);
+        }
+    }
+
+    private void declareParam(Node param, Scope definitionScope) {
+        if (param instanceof NameNode) {
+            declare(((NameNode) param).getName());
+        } else if (param instanceof Declaration) {
+            declare(((Declaration) param).declaredName);
+        } else if (param instanceof Assignment) {
+            Assignment assignment = (Assignment) param;
+            declareParam(assignment.getLeft(), definitionScope);
+            Scope paramScope = current;
+            current = definitionScope;
+            assignment.getRight().resolve(this);
+            current = paramScope;
+        } else if (param instanceof StarExpr) {
+            declareParam(((StarExpr) param).getValue(), definitionScope);
+        }
+    }
+
+    public void resolveName(NameNode node) {
+        if (declaring) return;
+        String name = node.getName();
+        int depth = 0;
+        for (Scope scope = current; scope != null; scope = scope.getParent()) {
+            int slot = scope.slotOf(name);
+            if (slot >= 0) {
+                node.bind(current, depth, slot);
+                return;
+            }
+            depth++;
+        }
+        // not a local, looked up in the top level environment
+        node.bind(current, depth, -1);
+    }
+
+    public Scope getCurrent() {
+        return current;
+    }
+}
@@ -14,6 +14,8 @@ public class ArgumentParser {
     private boolean gcTrigger;
     private boolean saveCache;
     private boolean checkContract = Configs.getBoolean("contract", true);
+    private boolean bytecode = Configs.getBoolean("bytecode", false);
+    private boolean jit = Configs.getBoolean("jit", false);
     private String msg;
     private String[] splArgs;
 
@@ -21,6 +23,22 @@ public class ArgumentParser {
         parseArgs(args);
     }
 
+    private ArgumentParser() {
+    }
+
+    /**
+     * Returns the arguments of a program compiled by {@code Splc}, whose options all come from the config file.
+     *
+     * @param splArgs the arguments of the spl main function
+     * @return the arguments
+     */
+    public static ArgumentParser ofCompiledProgram(String[] splArgs) {
+        ArgumentParser argumentParser = new ArgumentParser();
+        argumentParser.splArgs = splArgs;
+        argumentParser.allValid = true;
+        return argumentParser;
+    }
+
     private void parseArgs(String[] args) {
         for (int i = 0; i < args.length; ++i) {
             if (mainSrcFile == null) {
@@ -40,6 +58,8 @@ public class ArgumentParser {
                         case "-t", "--timer" -> timer = true;
                         case "-nc", "--noContract" -> checkContract = false;
                         case "-c", "--cache" -> saveCache = true;
+                        case "-vm", "--bytecode" -> bytecode = true;
+                        case "-jit", "--jit" -> jit = true;
                         default -> System.out.println("Unknown flag '" + s + "'");
                     }
                 } else {
@@ -106,6 +126,14 @@ public class ArgumentParser {
         return checkContract;
     }
 
+    public boolean isBytecode() {
+        return bytecode;
+    }
+
+    public boolean isJit() {
+        return jit;
+    }
+
     public boolean isSaveCache() {
         return saveCache;
     }
@@ -7,11 +7,18 @@ import java.util.Map;
 public class Configs {
 
     public static final String CONFIG_NAME = "config.ini";
-    private static final Map<String, String> map = new HashMap<>(Map.of(
-            "stackLimit", "512",
-            "heapSize", "8192",
-            "contract", "true",
-            "assert", "true"
+    private static final Map<String, String> map = new HashMap<>(Map.ofEntries(
+            Map.entry("stackLimit", "512"),
+            Map.entry("heapInitial", "8192"),
+            Map.entry("heapMax", "1048576"),
+            Map.entry("nurserySize", "2048"),
+            Map.entry("gcThreads", "0"),
+            Map.entry("incrementalGc", "false"),
+            Map.entry("gcPauseTarget", "5"),
+            Map.entry("bytecode", "false"),
+            Map.entry("jit", "false"),
+            Map.entry("contract", "true"),
+            Map.entry("assert", "true")
     ));
 
     public static void load() {
@@ -15,6 +15,7 @@ public class Constants {
     public static final String ITERATOR_CLASS = "Iterator";
     public static final String ITERABLE_CLASS = "Iterable";
     public static final String ARRAY_ITERATOR_CLASS = "ArrayIterator";
+    public static final String RANGE_ITERATOR_CLASS = "RangeIterator";
     public static final String LIST_CLASS = "List";
     public static final String DICT_CLASS = "Dict";
     public static final String NAIVE_DICT = "NaiveDict";
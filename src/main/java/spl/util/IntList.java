@@ -0,0 +1,64 @@
+package spl.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, which does not box its elements.
+ */
+public class IntList {
+    private int[] array;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int initCapacity) {
+        array = new int[Math.max(initCapacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == array.length) array = Arrays.copyOf(array, size * 2);
+        array[size++] = value;
+    }
+
+    public int get(int index) {
+        return array[index];
+    }
+
+    public void set(int index, int value) {
+        array[index] = value;
+    }
+
+    public int removeLast() {
+        return array[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements from {@code newSize}.
+     *
+     * @param newSize the new size, which is not greater than the current size
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the elements
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+}
@@ -3,17 +3,27 @@ package spl.util;
 import spl.ast.Node;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Reconstructor {
 
+    /**
+     * The 'reconstruct' method of each node class, looked up once for each class.
+     */
+    private static final Map<String, Method> RECONSTRUCT_METHODS = new ConcurrentHashMap<>();
+
     @SuppressWarnings("unchecked")
     public static <T extends Node> T reconstruct(BytesIn is) throws Exception {
         String className = is.readString();
         LineFilePos lineFilePos = LineFilePos.readLineFilePos(is);
 
-        Class<? extends Node> clazz = (Class<? extends Node>) Class.forName(className);
-
-        Method recMethod = clazz.getMethod("reconstruct", BytesIn.class, LineFilePos.class);
+        Method recMethod = RECONSTRUCT_METHODS.get(className);
+        if (recMethod == null) {
+            Class<? extends Node> clazz = (Class<? extends Node>) Class.forName(className);
+            recMethod = clazz.getMethod("reconstruct", BytesIn.class, LineFilePos.class);
+            RECONSTRUCT_METHODS.put(className, recMethod);
+        }
         return (T) recMethod.invoke(null, is, lineFilePos);
     }
 }
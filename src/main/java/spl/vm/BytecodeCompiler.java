@@ -0,0 +1,245 @@
+package spl.vm;
+
+import spl.ast.*;
+import spl.util.IntList;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the lines of a block to a {@code Chunk}.
+ * <p>
+ * Names, literals, arithmetic, logical and unary operators, increments, assignments to names, calls with positional
+ * arguments, if statements and return statements are compiled to instructions. Any other node is evaluated in the tree
+ * interpreter by {@code EVAL} or {@code EXEC}, including loops, whose body blocks are run as chunks of their own. A
+ * chunk therefore never jumps backwards.
+ * <p>
+ * Environments are created exactly where the tree interpreter creates them, so names keep the coordinates computed by
+ * {@code Resolver}.
+ */
+final class BytecodeCompiler {
+
+    private final IntList code = new IntList();
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new IdentityHashMap<>();
+    private int stackHeight;
+    private int maxStack;
+    /**
+     * Whether the statement being compiled evaluates any node in the tree interpreter.
+     */
+    private boolean fallback;
+
+    private BytecodeCompiler() {
+    }
+
+    static Chunk compile(BlockStmt block) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        compiler.block(block);
+        return new Chunk(
+                compiler.code.toArray(),
+                compiler.constants.toArray(),
+                compiler.maxStack
+        );
+    }
+
+    private void block(BlockStmt block) {
+        for (Line line : block.getLines()) {
+            for (Node node : line.getChildren()) {
+                statement(node);
+            }
+        }
+    }
+
+    private void statement(Node node) {
+        if (node instanceof IfStmt) {
+            ifStmt((IfStmt) node);
+        } else if (node instanceof ReturnStmt) {
+            expression(((ReturnStmt) node).getValue());
+            emit(Opcodes.RETURN, constant(node));
+            pop(1);
+        } else if (node instanceof Statement) {
+            emit(Opcodes.EXEC, constant(node));
+        } else {
+            fallback = false;
+            expression(node);
+            emit(Opcodes.POP, fallback ? 1 : 0);
+            pop(1);
+        }
+    }
+
+    private void ifStmt(IfStmt ifStmt) {
+        expression(ifStmt.getCondition());
+        int elseJump = emitJump(Opcodes.JUMP_IF_FALSE, constant(ifStmt));
+        pop(1);
+        nestedBlock(ifStmt.getBodyBlock());
+        if (ifStmt.getElseBlock() != null) {
+            int endJump = emitJump(Opcodes.JUMP);
+            patch(elseJump);
+            nestedBlock(ifStmt.getElseBlock());
+            patch(endJump);
+        } else {
+            patch(elseJump);
+        }
+    }
+
+    /**
+     * Compiles a block inside this chunk, in a new environment if the block needs one.
+     */
+    private void nestedBlock(BlockStmt block) {
+        if (!block.needsEnvironment()) {
+            block(block);
+            return;
+        }
+        emit(Opcodes.ENTER_BLOCK, constant(block.getScope()));
+        block(block);
+        emit(Opcodes.EXIT_BLOCK);
+    }
+
+    /**
+     * Compiles an expression, which pushes exactly one value.
+     */
+    private void expression(Node node) {
+        if (node instanceof LiteralNode) {
+            emit(Opcodes.LITERAL, constant(node));
+            push();
+        } else if (node instanceof NameNode) {
+            emit(Opcodes.LOAD, constant(node));
+            push();
+        } else if (node instanceof BinaryOperator) {
+            binaryOperator((BinaryOperator) node);
+        } else if (node instanceof RegularUnaryOperator && isCompiledUnary((RegularUnaryOperator) node)) {
+            RegularUnaryOperator uo = (RegularUnaryOperator) node;
+            expression(uo.getValue());
+            emit(uo.getOperator().equals("neg") ? Opcodes.NEG : Opcodes.NOT, constant(node));
+        } else if (node instanceof IncDecOperator && ((IncDecOperator) node).getValue() instanceof NameNode) {
+            emit(Opcodes.INC_DEC, constant(node));
+            push();
+        } else if (node instanceof Assignment && isCompiledTarget(((Assignment) node).getLeft())) {
+            expression(((Assignment) node).getRight());
+            emit(Opcodes.ASSIGN, constant(node));
+        } else if (node instanceof QuickAssignment && ((QuickAssignment) node).getLeft() instanceof NameNode) {
+            expression(((QuickAssignment) node).getRight());
+            emit(Opcodes.DEFINE, constant(node));
+        } else if (node instanceof BinaryOperatorAssignment && isCompiledUpdate((BinaryOperatorAssignment) node)) {
+            BinaryOperatorAssignment boa = (BinaryOperatorAssignment) node;
+            expression(boa.getLeft());
+            expression(boa.getRight());
+            emit(Opcodes.BINARY, constant(boa.getOperation()));
+            pop(1);
+            emit(Opcodes.ASSIGN, constant(node));
+        } else if (node instanceof FuncCall && isCompiledCall((FuncCall) node)) {
+            funcCall((FuncCall) node);
+        } else {
+            emit(Opcodes.EVAL, constant(node));
+            push();
+            fallback = true;
+        }
+    }
+
+    private void binaryOperator(BinaryOperator bo) {
+        if (bo.getType() != BinaryOperator.LAZY) {
+            expression(bo.getLeft());
+            expression(bo.getRight());
+            emit(Opcodes.BINARY, constant(bo));
+            pop(1);
+        } else if (bo.getOperator().equals("and")) {
+            expression(bo.getLeft());
+            int endJump = emitJump(Opcodes.AND, constant(bo));
+            pop(1);
+            expression(bo.getRight());
+            emit(Opcodes.TO_BOOL, constant(bo));
+            patch(endJump);
+        } else if (bo.getOperator().equals("or")) {
+            expression(bo.getLeft());
+            int endJump = emitJump(Opcodes.OR, constant(bo));
+            pop(1);
+            expression(bo.getRight());
+            emit(Opcodes.TO_BOOL, constant(bo));
+            patch(endJump);
+        } else {
+            emit(Opcodes.EVAL, constant(bo));
+            push();
+            fallback = true;
+        }
+    }
+
+    private void funcCall(FuncCall call) {
+        expression(call.getCallObj());
+        emit(Opcodes.CHECK_CALLABLE, constant(call));
+        List<Node> args = call.getArguments().getLine().getChildren();
+        for (Node arg : args) {
+            expression(arg);
+        }
+        emit(Opcodes.CALL, args.size(), constant(call));
+        pop(args.size());
+    }
+
+    private static boolean isCompiledUnary(RegularUnaryOperator uo) {
+        return uo.getOperator().equals("neg") || uo.getOperator().equals("not");
+    }
+
+    private static boolean isCompiledTarget(Node left) {
+        return left instanceof NameNode || left instanceof Declaration;
+    }
+
+    private static boolean isCompiledUpdate(BinaryOperatorAssignment boa) {
+        return boa.getLeft() instanceof NameNode && boa.getOperation().getType() != BinaryOperator.LAZY;
+    }
+
+    /**
+     * @return {@code true} if the call has no generics and only positional arguments without unpacking
+     */
+    private static boolean isCompiledCall(FuncCall call) {
+        if (call.getCallObj() instanceof GenericNode) return false;
+        for (Node arg : call.getArguments().getLine().getChildren()) {
+            if (arg instanceof Assignment || arg instanceof StarExpr) return false;
+        }
+        return true;
+    }
+
+    private int constant(Object value) {
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(value, index);
+        }
+        return index;
+    }
+
+    private void emit(int opcode, int... operands) {
+        code.add(opcode);
+        for (int operand : operands) code.add(operand);
+    }
+
+    /**
+     * Emits a jump whose target is the first operand, to be patched.
+     *
+     * @return the position of the target
+     */
+    private int emitJump(int opcode, int... operands) {
+        code.add(opcode);
+        int targetPos = code.size();
+        code.add(-1);
+        for (int operand : operands) code.add(operand);
+        return targetPos;
+    }
+
+    /**
+     * Makes the jump at {@code targetPos} jump to the next instruction.
+     */
+    private void patch(int targetPos) {
+        code.set(targetPos, code.size());
+    }
+
+    private void push() {
+        stackHeight++;
+        maxStack = Math.max(maxStack, stackHeight);
+    }
+
+    private void pop(int count) {
+        stackHeight -= count;
+    }
+}
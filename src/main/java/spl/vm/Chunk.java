@@ -0,0 +1,28 @@
+package spl.vm;
+
+/**
+ * The bytecode of a block, as compiled by {@code BytecodeCompiler}.
+ * <p>
+ * A chunk only refers to nodes and constant elements, never to environments or heap objects, so that it is shared
+ * by every evaluation of its block.
+ */
+public final class Chunk {
+
+    final int[] code;
+    final Object[] constants;
+    /**
+     * Maximum height of the operand stack.
+     */
+    final int maxStack;
+
+    Chunk(int[] code, Object[] constants, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+    }
+
+    @Override
+    public String toString() {
+        return "Chunk of " + code.length + " ints";
+    }
+}
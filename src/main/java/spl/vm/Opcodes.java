@@ -0,0 +1,111 @@
+package spl.vm;
+
+/**
+ * Instructions of the bytecode engine.
+ * <p>
+ * Each instruction is an opcode followed by its operands in {@code Chunk.code}. Operands named {@code k} are indices
+ * in {@code Chunk.constants}, which hold the nodes the instructions are compiled from. Operands named {@code target}
+ * are indices in {@code Chunk.code}.
+ * <p>
+ * Instructions that may throw an spl exception stop the chunk if they do.
+ */
+final class Opcodes {
+
+    /**
+     * {@code LITERAL k}: pushes the value of the literal node {@code k}.
+     */
+    static final int LITERAL = 0;
+    /**
+     * {@code LOAD k}: pushes the value of the name node {@code k}.
+     */
+    static final int LOAD = 1;
+    /**
+     * {@code POP check}: discards the value of an expression statement. If {@code check} is 1, the statement evaluated
+     * nodes in the tree interpreter, and the chunk stops if the environment is interrupted.
+     */
+    static final int POP = 2;
+    /**
+     * {@code ASSIGN k}: assigns the top value to the left side of the assignment node {@code k}, keeping the value.
+     */
+    static final int ASSIGN = 3;
+    /**
+     * {@code DEFINE k}: defines the left side name of the ':=' node {@code k} with the top value, keeping the value.
+     */
+    static final int DEFINE = 4;
+    /**
+     * {@code BINARY k}: replaces the two top values by the result of the operator node {@code k} on them.
+     */
+    static final int BINARY = 5;
+    /**
+     * {@code NEG k}: negates the top value, for the unary operator node {@code k}.
+     */
+    static final int NEG = 6;
+    /**
+     * {@code NOT k}: inverts the top value, for the unary operator node {@code k}.
+     */
+    static final int NOT = 7;
+    /**
+     * {@code INC_DEC k}: evaluates the increment or decrement node {@code k}, whose operand is a name, and pushes the
+     * result.
+     */
+    static final int INC_DEC = 8;
+    /**
+     * {@code JUMP target}.
+     */
+    static final int JUMP = 9;
+    /**
+     * {@code JUMP_IF_FALSE target k}: pops the condition of the if statement {@code k} and jumps if it is false.
+     */
+    static final int JUMP_IF_FALSE = 10;
+    /**
+     * {@code AND target k}: for the 'and' node {@code k}, keeps a false left operand and jumps, or pops a true one.
+     */
+    static final int AND = 11;
+    /**
+     * {@code OR target k}: for the 'or' node {@code k}, keeps a true left operand and jumps, or pops a false one. An
+     * object left operand is replaced by the result of the 'or' function, evaluating the right operand in the tree
+     * interpreter, and jumps.
+     */
+    static final int OR = 12;
+    /**
+     * {@code TO_BOOL k}: checks that the top value, which is the right operand of the lazy operator node {@code k},
+     * is a boolean.
+     */
+    static final int TO_BOOL = 13;
+    /**
+     * {@code CHECK_CALLABLE k}: checks that the top value, which is the callee of the call node {@code k}, points to
+     * a callable object.
+     */
+    static final int CHECK_CALLABLE = 14;
+    /**
+     * {@code CALL argc k}: replaces the callee and the {@code argc} top values by the result of calling the callee
+     * with them as positional arguments, for the call node {@code k}.
+     */
+    static final int CALL = 15;
+    /**
+     * {@code EVAL k}: evaluates the expression node {@code k} in the tree interpreter and pushes its value.
+     */
+    static final int EVAL = 16;
+    /**
+     * {@code EXEC k}: evaluates the statement node {@code k} in the tree interpreter, and stops the chunk if the
+     * environment is interrupted.
+     */
+    static final int EXEC = 17;
+    /**
+     * {@code ENTER_BLOCK k}: creates a block environment of scope {@code k} in the current environment, and makes it
+     * current.
+     */
+    static final int ENTER_BLOCK = 18;
+    /**
+     * {@code EXIT_BLOCK}: makes the environment enclosing the current block environment current.
+     */
+    static final int EXIT_BLOCK = 19;
+    /**
+     * {@code RETURN k}: pops the value of the return statement {@code k} and returns it, stopping the chunk if the
+     * environment is interrupted.
+     */
+    static final int RETURN = 20;
+
+    private Opcodes() {
+    }
+}
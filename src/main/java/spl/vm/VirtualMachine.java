@@ -0,0 +1,279 @@
+package spl.vm;
+
+import spl.ast.*;
+import spl.interpreter.EvaluatedArguments;
+import spl.interpreter.Memory;
+import spl.interpreter.env.BlockEnvironment;
+import spl.interpreter.env.Environment;
+import spl.interpreter.env.Scope;
+import spl.interpreter.invokes.SplInvokes;
+import spl.interpreter.primitives.*;
+import spl.interpreter.splObjects.SplCallable;
+import spl.interpreter.splObjects.SplMethod;
+import spl.interpreter.splObjects.SplObject;
+import spl.util.Constants;
+
+/**
+ * The bytecode engine, which runs blocks as chunks compiled on their first evaluation.
+ * <p>
+ * Chunks use the same {@code Memory}, environments and objects as the tree interpreter, and evaluate nodes that are
+ * not compiled through it. Values on the operand stack are kept from gc until the end of their statement.
+ */
+public final class VirtualMachine {
+
+    private VirtualMachine() {
+    }
+
+    /**
+     * Runs the lines of {@code block} in {@code env}, which is neither interrupted nor has an exception.
+     *
+     * @param block the block
+     * @param env   the environment of the block
+     */
+    public static void run(BlockStmt block, Environment env) {
+        Chunk chunk = block.getChunk();
+        if (chunk == null) {
+            chunk = BytecodeCompiler.compile(block);
+            block.setChunk(chunk);
+        }
+        Memory memory = env.getMemory();
+        int rootsMark = memory.tempRootsMark();
+        execute(chunk, env, rootsMark);
+        memory.popTempRoots(rootsMark);
+    }
+
+    /**
+     * @param rootsMark the height of the temporary roots before running the chunk
+     */
+    private static void execute(Chunk chunk, Environment env, int rootsMark) {
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+        final Memory memory = env.getMemory();
+        final SplElement[] stack = new SplElement[chunk.maxStack];
+        Environment cur = env;
+        int sp = 0;
+        int pc = 0;
+
+        while (pc < code.length) {
+            switch (code[pc]) {
+                case Opcodes.LITERAL -> {
+                    SplElement value = ((LiteralNode) constants[code[pc + 1]]).evaluate(cur);
+                    if (cur.hasException()) return;
+                    sp = push(value, stack, sp, memory);
+                    pc += 2;
+                }
+                case Opcodes.LOAD -> {
+                    SplElement value = ((NameNode) constants[code[pc + 1]]).lookup(cur);
+                    if (cur.hasException()) return;
+                    sp = push(value, stack, sp, memory);
+                    pc += 2;
+                }
+                case Opcodes.POP -> {
+                    sp--;
+                    memory.popTempRoots(rootsMark);
+                    if (code[pc + 1] == 1 && cur.interrupted()) return;
+                    pc += 2;
+                }
+                case Opcodes.ASSIGN -> {
+                    BinaryExpr assignment = (BinaryExpr) constants[code[pc + 1]];
+                    Assignment.assignment(assignment.getLeft(), stack[sp - 1], cur, assignment.getLineFile());
+                    if (cur.hasException()) return;
+                    pc += 2;
+                }
+                case Opcodes.DEFINE -> {
+                    QuickAssignment qa = (QuickAssignment) constants[code[pc + 1]];
+                    cur.defineVarAndSet(((NameNode) qa.getLeft()).getName(), stack[sp - 1], qa.getLineFile());
+                    if (cur.hasException()) return;
+                    pc += 2;
+                }
+                case Opcodes.BINARY -> {
+                    BinaryOperator bo = (BinaryOperator) constants[code[pc + 1]];
+                    SplElement right = stack[--sp];
+                    SplElement left = stack[--sp];
+                    SplElement result = bo.evalOperands(left, right, cur);
+                    if (cur.hasException()) return;
+                    sp = push(result, stack, sp, memory);
+                    pc += 2;
+                }
+                case Opcodes.NEG -> {
+                    SplElement value = stack[sp - 1];
+                    if (value.isIntLike()) {
+                        stack[sp - 1] = Int.valueOf(-value.intValue());
+                    } else if (value instanceof SplFloat) {
+                        stack[sp - 1] = new SplFloat(-value.floatValue());
+                    } else {
+                        operatorError((Node) constants[code[pc + 1]], cur);
+                        return;
+                    }
+                    pc += 2;
+                }
+                case Opcodes.NOT -> {
+                    SplElement value = stack[sp - 1];
+                    if (!(value instanceof Bool)) {
+                        operatorError((Node) constants[code[pc + 1]], cur);
+                        return;
+                    }
+                    stack[sp - 1] = Bool.boolValueOf(!((Bool) value).value);
+                    pc += 2;
+                }
+                case Opcodes.INC_DEC -> {
+                    IncDecOperator ido = (IncDecOperator) constants[code[pc + 1]];
+                    NameNode name = (NameNode) ido.getValue();
+                    SplElement current = name.lookup(cur);
+                    SplElement result = ido.stepped(current, cur);
+                    Assignment.assignment(name, result, cur, ido.getLineFile());
+                    if (cur.hasException()) return;
+                    sp = push(ido.isPost() ? current : result, stack, sp, memory);
+                    pc += 2;
+                }
+                case Opcodes.JUMP -> pc = code[pc + 1];
+                case Opcodes.JUMP_IF_FALSE -> {
+                    SplElement cond = stack[--sp];
+                    if (!(cond instanceof Bool)) {
+                        conditionError((Node) constants[code[pc + 2]], cur);
+                        return;
+                    }
+                    pc = ((Bool) cond).value ? pc + 3 : code[pc + 1];
+                }
+                case Opcodes.AND -> {
+                    SplElement left = stack[sp - 1];
+                    if (!(left instanceof Bool)) {
+                        conditionError((Node) constants[code[pc + 2]], cur);
+                        return;
+                    }
+                    if (((Bool) left).value) {
+                        sp--;
+                        pc += 3;
+                    } else {
+                        pc = code[pc + 1];
+                    }
+                }
+                case Opcodes.OR -> {
+                    SplElement left = stack[sp - 1];
+                    if (left instanceof Bool) {
+                        if (((Bool) left).value) {
+                            pc = code[pc + 1];
+                        } else {
+                            sp--;
+                            pc += 3;
+                        }
+                    } else if (left instanceof Reference) {
+                        BinaryOperator bo = (BinaryOperator) constants[code[pc + 2]];
+                        SplElement result = bo.orObject((Reference) left, cur);
+                        if (cur.hasException()) return;
+                        sp = push(result, stack, sp - 1, memory);
+                        pc = code[pc + 1];
+                    } else {
+                        SplInvokes.throwException(
+                                cur,
+                                Constants.TYPE_ERROR,
+                                "Binary operator type error.",
+                                ((Node) constants[code[pc + 2]]).getLineFile());
+                        return;
+                    }
+                }
+                case Opcodes.TO_BOOL -> {
+                    if (!(stack[sp - 1] instanceof Bool)) {
+                        conditionError((Node) constants[code[pc + 1]], cur);
+                        return;
+                    }
+                    pc += 2;
+                }
+                case Opcodes.CHECK_CALLABLE -> {
+                    SplElement callee = stack[sp - 1];
+                    Node call = (Node) constants[code[pc + 1]];
+                    if (SplElement.isPrimitive(callee)) {
+                        SplInvokes.throwException(
+                                cur,
+                                Constants.TYPE_ERROR,
+                                "Element '" + callee + "' is not callable.",
+                                call.getLineFile());
+                        return;
+                    }
+                    SplObject obj = memory.get((Reference) callee);
+                    if (!(obj instanceof SplCallable)) {
+                        SplInvokes.throwException(
+                                cur,
+                                Constants.TYPE_ERROR,
+                                "Object '" + obj + "' is not callable.",
+                                call.getLineFile());
+                        return;
+                    }
+                    pc += 2;
+                }
+                case Opcodes.CALL -> {
+                    int argc = code[pc + 1];
+                    FuncCall call = (FuncCall) constants[code[pc + 2]];
+                    EvaluatedArguments ea = new EvaluatedArguments();
+                    for (int i = sp - argc; i < sp; i++) {
+                        ea.positionalArgs.add(stack[i]);
+                    }
+                    sp -= argc;
+                    SplCallable function = memory.get((Reference) stack[--sp]);
+                    if (function instanceof SplMethod && cur.hasName(Constants.THIS)) {
+                        // calling a method inside a method in class
+                        ea.insertThis((Reference) cur.get(Constants.THIS, call.getLineFile()));
+                    }
+                    SplElement result = function.call(ea, null, cur, call.getLineFile());
+                    if (cur.hasException()) return;
+                    sp = push(result, stack, sp, memory);
+                    pc += 3;
+                }
+                case Opcodes.EVAL -> {
+                    SplElement value = ((Node) constants[code[pc + 1]]).evaluate(cur);
+                    if (cur.hasException()) return;
+                    sp = push(value, stack, sp, memory);
+                    pc += 2;
+                }
+                case Opcodes.EXEC -> {
+                    ((Node) constants[code[pc + 1]]).evaluate(cur);
+                    if (cur.hasException() || cur.interrupted()) return;
+                    pc += 2;
+                }
+                case Opcodes.ENTER_BLOCK -> {
+                    cur = new BlockEnvironment(cur, (Scope) constants[code[pc + 1]]);
+                    pc += 2;
+                }
+                case Opcodes.EXIT_BLOCK -> {
+                    cur = cur.outer;
+                    pc++;
+                }
+                case Opcodes.RETURN -> {
+                    SplElement value = stack[--sp];
+                    cur.setReturn(value, ((Node) constants[code[pc + 1]]).getLineFile());
+                    if (cur.hasException() || cur.interrupted()) return;
+                    memory.popTempRoots(rootsMark);
+                    pc += 2;
+                }
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    /**
+     * Pushes a value, keeping it from gc if it is a pointer.
+     *
+     * @return the new height of the stack
+     */
+    private static int push(SplElement value, SplElement[] stack, int sp, Memory memory) {
+        if (value instanceof Reference) memory.addTempPtr((Reference) value);
+        stack[sp] = value;
+        return sp + 1;
+    }
+
+    private static void conditionError(Node node, Environment env) {
+        SplInvokes.throwException(
+                env,
+                Constants.TYPE_ERROR,
+                "Boolean statement takes boolean value as condition.",
+                node.getLineFile());
+    }
+
+    private static void operatorError(Node node, Environment env) {
+        SplInvokes.throwException(
+                env,
+                Constants.TYPE_ERROR,
+                "Operator error ",
+                node.getLineFile());
+    }
+}